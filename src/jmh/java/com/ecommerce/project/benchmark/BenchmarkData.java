@@ -0,0 +1,28 @@
+package com.ecommerce.project.benchmark;
+
+import com.ecommerce.project.model.Category;
+import com.ecommerce.project.model.Product;
+
+final class BenchmarkData {
+
+    private BenchmarkData() {
+    }
+
+    static Product product(long productId) {
+        Category category = new Category();
+        category.setCategoryId(1L);
+        category.setCategoryName("Electronics");
+
+        Product product = new Product();
+        product.setProductId(productId);
+        product.setProductName("Product " + productId);
+        product.setDescription("Description of product " + productId);
+        product.setImage("default.png");
+        product.setQuantity(100);
+        product.setPrice(1000 + productId);
+        product.setDiscount(10);
+        product.setSpecialPrice(product.getPrice() - (product.getDiscount() * 0.01) * product.getPrice());
+        product.setCategory(category);
+        return product;
+    }
+}
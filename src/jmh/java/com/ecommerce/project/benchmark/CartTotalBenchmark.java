@@ -0,0 +1,44 @@
+package com.ecommerce.project.benchmark;
+
+import com.ecommerce.project.model.Cart;
+import com.ecommerce.project.model.CartItem;
+import com.ecommerce.project.model.Product;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CartTotalBenchmark {
+
+    @Param({"5", "50"})
+    public int cartLines;
+
+    private Cart cart;
+
+    @Setup
+    public void setUp() {
+        cart = new Cart();
+        cart.setCartId(1L);
+        for (long i = 1; i <= cartLines; i++) {
+            Product product = BenchmarkData.product(i);
+            CartItem cartItem = new CartItem();
+            cartItem.setCartItemId(i);
+            cartItem.setCart(cart);
+            cartItem.setProduct(product);
+            cartItem.setQuantity((int) (i % 4) + 1);
+            cartItem.setDiscount(product.getDiscount());
+            cartItem.setProductPrice(product.getSpecialPrice());
+            cart.getCartItems().add(cartItem);
+        }
+    }
+
+    @Benchmark
+    public double recalculateTotalPrice() {
+        return cart.recalculateTotalPrice();
+    }
+}
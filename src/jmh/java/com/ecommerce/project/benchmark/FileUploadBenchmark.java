@@ -0,0 +1,53 @@
+package com.ecommerce.project.benchmark;
+
+import com.ecommerce.project.service.FileServiceImpl;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FileUploadBenchmark {
+
+    @Param({"65536", "1048576"})
+    public int imageBytes;
+
+    private FileServiceImpl fileService;
+    private MockMultipartFile image;
+    private Path directory;
+
+    @Setup
+    public void setUp() throws IOException {
+        fileService = new FileServiceImpl();
+        byte[] content = new byte[imageBytes];
+        new Random(42).nextBytes(content);
+        image = new MockMultipartFile("Image", "product.jpeg", "image/jpeg", content);
+        directory = Files.createTempDirectory("upload-benchmark");
+    }
+
+    @TearDown(Level.Iteration)
+    public void cleanUp() throws IOException {
+        FileSystemUtils.deleteRecursively(directory);
+        Files.createDirectories(directory);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        FileSystemUtils.deleteRecursively(directory);
+    }
+
+    @Benchmark
+    public String uploadImage() throws IOException {
+        return fileService.uploadImage(directory.toString(), image);
+    }
+}
@@ -0,0 +1,39 @@
+package com.ecommerce.project.benchmark;
+
+import com.ecommerce.project.security.jwt.JwtUtils;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.TimeUnit;
+
+// Every authenticated request validates the cookie token and then parses it again for the username
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtBenchmark {
+
+    private JwtUtils jwtUtils;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        jwtUtils = new JwtUtils();
+        ReflectionTestUtils.setField(jwtUtils, "jwtSecret", "mySecretKey123adsdasfgfdsgdghdfhgrehrbrebervrereg");
+        ReflectionTestUtils.setField(jwtUtils, "jwtExpirationMs", "300000000");
+        ReflectionTestUtils.setField(jwtUtils, "jwtCookie", "springBootEcom");
+        token = jwtUtils.generateTokenFromUsername("user1");
+    }
+
+    @Benchmark
+    public boolean validateJwtToken() {
+        return jwtUtils.validateJwtToken(token);
+    }
+
+    @Benchmark
+    public String getUserNameFromJWTToken() {
+        return jwtUtils.getUserNameFromJWTToken(token);
+    }
+}
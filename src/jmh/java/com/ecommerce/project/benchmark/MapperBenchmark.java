@@ -0,0 +1,104 @@
+package com.ecommerce.project.benchmark;
+
+import com.ecommerce.project.mapper.CartMapper;
+import com.ecommerce.project.mapper.OrderMapper;
+import com.ecommerce.project.mapper.ProductMapper;
+import com.ecommerce.project.model.*;
+import com.ecommerce.project.payload.CartDTO;
+import com.ecommerce.project.payload.OrderDTO;
+import com.ecommerce.project.payload.ProductDTO;
+import org.modelmapper.ModelMapper;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Compares the explicit mappers with the ModelMapper fallback on the list-endpoint shapes
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MapperBenchmark {
+
+    @Param({"false", "true"})
+    public boolean modelMapperFallback;
+
+    private ProductMapper productMapper;
+    private CartMapper cartMapper;
+    private OrderMapper orderMapper;
+
+    private List<Product> products;
+    private Cart cart;
+    private Order order;
+
+    @Setup
+    public void setUp() {
+        ModelMapper modelMapper = new ModelMapper();
+        productMapper = new ProductMapper();
+        productMapper.setModelMapper(modelMapper);
+        productMapper.setModelMapperFallback(modelMapperFallback);
+        cartMapper = new CartMapper();
+        cartMapper.setModelMapper(modelMapper);
+        cartMapper.setModelMapperFallback(modelMapperFallback);
+        cartMapper.setProductMapper(productMapper);
+        orderMapper = new OrderMapper();
+        orderMapper.setModelMapper(modelMapper);
+        orderMapper.setModelMapperFallback(modelMapperFallback);
+        orderMapper.setProductMapper(productMapper);
+
+        products = new ArrayList<>();
+        for (long i = 1; i <= 60; i++) {
+            products.add(BenchmarkData.product(i));
+        }
+
+        cart = new Cart();
+        cart.setCartId(1L);
+        order = new Order();
+        order.setOrderId(1L);
+        order.setEmail("user1@example.com");
+        order.setOrderDate(LocalDate.now());
+        order.setOrderStatus("Order Accepted !");
+        order.setPayment(new Payment("card", "pg-1", "succeeded", "ok", "stripe"));
+        for (int i = 0; i < 10; i++) {
+            Product product = products.get(i);
+            CartItem cartItem = new CartItem();
+            cartItem.setCartItemId((long) i);
+            cartItem.setCart(cart);
+            cartItem.setProduct(product);
+            cartItem.setQuantity(2);
+            cartItem.setDiscount(product.getDiscount());
+            cartItem.setProductPrice(product.getSpecialPrice());
+            cart.getCartItems().add(cartItem);
+
+            OrderItem orderItem = new OrderItem();
+            orderItem.setOrderItemId((long) i);
+            orderItem.setOrder(order);
+            orderItem.setProduct(product);
+            orderItem.setQuantity(2);
+            orderItem.setDiscount(product.getDiscount());
+            orderItem.setOrderedProductPrice(product.getSpecialPrice());
+            order.getOrderItems().add(orderItem);
+        }
+        cart.setTotalPrice(cart.getCartItems().stream().mapToDouble(item -> item.getProductPrice() * item.getQuantity()).sum());
+        order.setTotalAmount(cart.getTotalPrice());
+    }
+
+    @Benchmark
+    public List<ProductDTO> productPage() {
+        return products.stream().map(productMapper::toDTO).toList();
+    }
+
+    @Benchmark
+    public CartDTO cart() {
+        return cartMapper.toDTO(cart);
+    }
+
+    @Benchmark
+    public OrderDTO order() {
+        return orderMapper.toDTO(order);
+    }
+}
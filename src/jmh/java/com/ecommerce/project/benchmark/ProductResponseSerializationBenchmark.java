@@ -0,0 +1,41 @@
+package com.ecommerce.project.benchmark;
+
+import com.ecommerce.project.mapper.ProductMapper;
+import com.ecommerce.project.payload.ProductDTO;
+import com.ecommerce.project.payload.ProductResponse;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// A full default page (AppConstants.PAGE_SIZE) of the public product listing
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ProductResponseSerializationBenchmark {
+
+    private ObjectMapper objectMapper;
+    private ProductResponse productResponse;
+
+    @Setup
+    public void setUp() {
+        objectMapper = new ObjectMapper();
+        ProductMapper productMapper = new ProductMapper();
+        List<ProductDTO> productDTOS = new ArrayList<>();
+        for (long i = 1; i <= 60; i++) {
+            productDTOS.add(productMapper.toDTO(BenchmarkData.product(i)));
+        }
+        productResponse = new ProductResponse(productDTOS, 0, 60, 6000L, 100, false, null);
+    }
+
+    @Benchmark
+    public byte[] serialize() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(productResponse);
+    }
+}
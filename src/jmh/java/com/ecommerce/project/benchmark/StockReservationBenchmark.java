@@ -0,0 +1,89 @@
+package com.ecommerce.project.benchmark;
+
+import com.ecommerce.project.exceptions.APIException;
+import com.ecommerce.project.service.InventoryReservation;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// Checkouts of a few popular products from 16 threads: InventoryReservation's conditional
+// decrement against the SELECT ... FOR UPDATE, check, UPDATE it replaced. The conditional
+// update holds each row lock for one statement instead of a read, a check and a write.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(16)
+@Fork(1)
+public class StockReservationBenchmark {
+
+    private static final int PRODUCTS = 3;
+    private static final int STOCK = 1_000_000_000;
+
+    @Param({"conditionalUpdate", "selectForUpdate"})
+    public String strategy;
+
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate transactionTemplate;
+    private InventoryReservation inventoryReservation;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:reservations;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=10000", "sa", "");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("DROP TABLE IF EXISTS products");
+        jdbcTemplate.execute("DROP TABLE IF EXISTS product_stock_shards");
+        jdbcTemplate.execute("CREATE TABLE products (product_id BIGINT PRIMARY KEY, product_name VARCHAR(255), quantity INT)");
+        jdbcTemplate.execute("CREATE TABLE product_stock_shards (product_id BIGINT, shard_no INT, quantity INT, " +
+                "PRIMARY KEY (product_id, shard_no))");
+        for (long productId = 1; productId <= PRODUCTS; productId++) {
+            jdbcTemplate.update("INSERT INTO products VALUES (?, ?, ?)", productId, "Product " + productId, STOCK);
+        }
+        transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+
+        inventoryReservation = new InventoryReservation();
+        ReflectionTestUtils.setField(inventoryReservation, "jdbcTemplate", jdbcTemplate);
+    }
+
+    @Benchmark
+    public void reserveOrder() {
+        Map<Long, Integer> order = randomOrder();
+        if (strategy.equals("conditionalUpdate")) {
+            transactionTemplate.executeWithoutResult(status -> inventoryReservation.reserve(order));
+        } else {
+            transactionTemplate.executeWithoutResult(status -> reserveWithRowLocks(order));
+        }
+    }
+
+    // one to three lines, as a cart would hold them
+    private Map<Long, Integer> randomOrder() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        Map<Long, Integer> order = new TreeMap<>();
+        int lines = 1 + random.nextInt(PRODUCTS);
+        while (order.size() < lines) {
+            order.put(1L + random.nextInt(PRODUCTS), 1 + random.nextInt(5));
+        }
+        return order;
+    }
+
+    // the pessimistic alternative: lock each row in id order, check and write back
+    private void reserveWithRowLocks(Map<Long, Integer> order) {
+        order.forEach((productId, quantity) -> {
+            Integer stock = jdbcTemplate.queryForObject(
+                    "SELECT quantity FROM products WHERE product_id = ? FOR UPDATE", Integer.class, productId);
+            if (stock < quantity)
+                throw new APIException("Product " + productId + " is out of stock");
+            jdbcTemplate.update("UPDATE products SET quantity = ? WHERE product_id = ?", stock - quantity, productId);
+        });
+    }
+}
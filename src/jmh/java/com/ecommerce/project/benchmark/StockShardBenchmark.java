@@ -0,0 +1,58 @@
+package com.ecommerce.project.benchmark;
+
+import com.ecommerce.project.service.InventoryReservation;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// Checkouts of one flash-sale product from 16 threads. With a single shard every reservation
+// queues on the same row; throughput should grow with the number of shards.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(16)
+@Fork(1)
+public class StockShardBenchmark {
+
+    private static final long PRODUCT_ID = 1L;
+    private static final int STOCK = 1_000_000_000;
+
+    @Param({"1", "4", "16"})
+    public int shards;
+
+    private TransactionTemplate transactionTemplate;
+    private InventoryReservation inventoryReservation;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:shards;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=10000", "sa", "");
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("DROP TABLE IF EXISTS products");
+        jdbcTemplate.execute("DROP TABLE IF EXISTS product_stock_shards");
+        jdbcTemplate.execute("CREATE TABLE products (product_id BIGINT PRIMARY KEY, product_name VARCHAR(255), quantity INT)");
+        jdbcTemplate.execute("CREATE TABLE product_stock_shards (product_id BIGINT, shard_no INT, quantity INT, " +
+                "PRIMARY KEY (product_id, shard_no))");
+        jdbcTemplate.update("INSERT INTO products VALUES (?, ?, 0)", PRODUCT_ID, "Flash sale product");
+        for (int shardNo = 0; shardNo < shards; shardNo++) {
+            jdbcTemplate.update("INSERT INTO product_stock_shards VALUES (?, ?, ?)", PRODUCT_ID, shardNo, STOCK / shards);
+        }
+        transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+
+        inventoryReservation = new InventoryReservation();
+        ReflectionTestUtils.setField(inventoryReservation, "jdbcTemplate", jdbcTemplate);
+    }
+
+    @Benchmark
+    public void reserveOne() {
+        transactionTemplate.executeWithoutResult(status -> inventoryReservation.reserve(Map.of(PRODUCT_ID, 1)));
+    }
+}
@@ -0,0 +1,7 @@
+package com.ecommerce.project.cache;
+
+// Published when CatalogVersion moves past writes made by another instance, or when the stock
+// version moves, before the new versions are handed out, so local copies can be dropped first.
+// stockOnly: only stock changed, products and categories are as they were.
+public record CatalogChangedEvent(long version, long stockVersion, boolean stockOnly) {
+}
@@ -0,0 +1,163 @@
+package com.ecommerce.project.cache;
+
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// Monotonic version of everything the public catalog listings show. It lives in database
+// sequences shared by all instances: a write anywhere bumps it, and every instance re-reads it
+// at most refresh-ms later, so no instance keeps answering 304 for data changed elsewhere.
+// Seeing another instance's write publishes a CatalogChangedEvent before the new version is
+// used, so caches local to this instance never pair a page read before it with the new ETag.
+//
+// Checkouts only change stock. They are counted in a separate stock version, bumped at most
+// once per stock-interval-ms, so orders neither invalidate the listings one by one nor make
+// instances reload categories and the search index.
+@Component
+public class CatalogVersion {
+
+    private static final Logger logger = LoggerFactory.getLogger(CatalogVersion.class);
+
+    // last_value is 1 before the first nextval too, is_called tells the two apart
+    private static final String READ_SHARED = "SELECT " +
+            "(SELECT CASE WHEN is_called THEN last_value ELSE last_value - 1 END FROM catalog_version_seq), " +
+            "(SELECT CASE WHEN is_called THEN last_value ELSE last_value - 1 END FROM stock_version_seq)";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Value("${project.cache.catalog-version.refresh-ms:1000}")
+    private long refreshMs;
+
+    private TransactionTemplate bumpTemplate;
+    private volatile long version;
+    private volatile long stockVersion;
+    private volatile long readAt;
+    private final AtomicBoolean stockChanged = new AtomicBoolean();
+
+    @PostConstruct
+    public void init() {
+        jdbcTemplate.execute("CREATE SEQUENCE IF NOT EXISTS catalog_version_seq");
+        jdbcTemplate.execute("CREATE SEQUENCE IF NOT EXISTS stock_version_seq");
+        // a sequence is not transactional, but the read must not join the transaction that just committed
+        bumpTemplate = new TransactionTemplate(transactionTemplate.getTransactionManager());
+        bumpTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        // nothing is cached yet, so the starting versions are taken as they are
+        long[] shared = readShared();
+        version = shared[0];
+        stockVersion = shared[1];
+        readAt = System.currentTimeMillis();
+    }
+
+    public long current() {
+        if (System.currentTimeMillis() - readAt >= refreshMs)
+            refresh();
+        return version;
+    }
+
+    // Inside a transaction the bump waits for the commit, so a version is never
+    // handed out together with data that was read before the write became visible
+    public void bump() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    increment();
+                }
+            });
+        } else {
+            increment();
+        }
+    }
+
+    // stock shown by the listings moved, picked up by the first publishStockChanges after the commit
+    public void stockChanged() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    stockChanged.set(true);
+                }
+            });
+        } else {
+            stockChanged.set(true);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${project.cache.catalog-version.stock-interval-ms:30000}")
+    public void publishStockChanges() {
+        if (!stockChanged.getAndSet(false))
+            return;
+        Long next = bumpTemplate.execute(status ->
+                jdbcTemplate.queryForObject("SELECT nextval('stock_version_seq')", Long.class));
+        if (next != null)
+            advance(version, next, false);
+    }
+
+    public String etag(Object... requestParts) {
+        long catalog = current();
+        return "\"" + catalog + "." + stockVersion + "-" + Integer.toHexString(Arrays.deepHashCode(requestParts)) + "\"";
+    }
+
+    private void increment() {
+        Long next = bumpTemplate.execute(status ->
+                jdbcTemplate.queryForObject("SELECT nextval('catalog_version_seq')", Long.class));
+        // a gap to the previous version means another instance wrote in between
+        if (next != null)
+            advance(next, stockVersion, next > version + 1);
+    }
+
+    private void refresh() {
+        long[] shared;
+        synchronized (this) {
+            // another thread may have refreshed while this one waited
+            if (System.currentTimeMillis() - readAt < refreshMs)
+                return;
+            try {
+                shared = readShared();
+            } catch (RuntimeException e) {
+                logger.warn("Catalog version could not be read, keeping {}.{}: {}", version, stockVersion, e.getMessage());
+                return;
+            } finally {
+                readAt = System.currentTimeMillis();
+            }
+        }
+        // listeners run outside the lock, readers keep the old version and caches meanwhile
+        advance(shared[0], shared[1], shared[0] > version);
+    }
+
+    private long[] readShared() {
+        return jdbcTemplate.queryForObject(READ_SHARED, (rs, rowNum) -> new long[]{rs.getLong(1), rs.getLong(2)});
+    }
+
+    private void advance(long sharedVersion, long sharedStockVersion, boolean changedElsewhere) {
+        boolean stockMoved = sharedStockVersion > stockVersion;
+        if (changedElsewhere || stockMoved)
+            eventPublisher.publishEvent(new CatalogChangedEvent(sharedVersion, sharedStockVersion, !changedElsewhere));
+        synchronized (this) {
+            if (sharedVersion > version)
+                version = sharedVersion;
+            if (sharedStockVersion > stockVersion)
+                stockVersion = sharedStockVersion;
+        }
+    }
+}
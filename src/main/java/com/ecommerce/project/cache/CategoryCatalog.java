@@ -0,0 +1,92 @@
+package com.ecommerce.project.cache;
+
+import com.ecommerce.project.model.Category;
+import com.ecommerce.project.repositories.CategoryRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicReference;
+
+// Immutable in-memory copy of all categories. Readers always see one complete snapshot;
+// writers build a modified copy and swap it in. Categories written by another instance are
+// picked up by reloading once CatalogVersion sees their version.
+@Component
+public class CategoryCatalog {
+
+    public static final Comparator<CategoryEntry> BY_ID = Comparator.comparing(CategoryEntry::categoryId);
+    public static final Comparator<CategoryEntry> BY_NAME = Comparator.comparing(CategoryEntry::categoryName)
+            .thenComparing(CategoryEntry::categoryId);
+
+    private final AtomicReference<Snapshot> snapshot = new AtomicReference<>();
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    public record CategoryEntry(Long categoryId, String categoryName) {
+    }
+
+    public record Snapshot(Map<Long, String> namesById, List<CategoryEntry> sortedById, List<CategoryEntry> sortedByName) {
+
+        static Snapshot of(Collection<CategoryEntry> entries) {
+            Map<Long, String> namesById = new HashMap<>();
+            entries.forEach(entry -> namesById.put(entry.categoryId(), entry.categoryName()));
+            return new Snapshot(
+                    Collections.unmodifiableMap(namesById),
+                    entries.stream().sorted(BY_ID).toList(),
+                    entries.stream().sorted(BY_NAME).toList()
+            );
+        }
+
+        public List<CategoryEntry> sortedBy(String sortBy) {
+            return sortBy.equals("categoryName") ? sortedByName : sortedById;
+        }
+    }
+
+    public Snapshot snapshot() {
+        Snapshot current = snapshot.get();
+        return current != null ? current : reload();
+    }
+
+    public boolean exists(Long categoryId) {
+        return snapshot().namesById().containsKey(categoryId);
+    }
+
+    public Optional<String> nameOf(Long categoryId) {
+        return Optional.ofNullable(snapshot().namesById().get(categoryId));
+    }
+
+    public synchronized Snapshot reload() {
+        List<CategoryEntry> entries = categoryRepository.findAll().stream()
+                .map(category -> new CategoryEntry(category.getCategoryId(), category.getCategoryName()))
+                .toList();
+        Snapshot loaded = Snapshot.of(entries);
+        snapshot.set(loaded);
+        return loaded;
+    }
+
+    // the next reader loads a fresh snapshot, stock-only changes leave the categories as they are
+    @EventListener(condition = "!#event.stockOnly()")
+    public synchronized void onCatalogChanged(CatalogChangedEvent event) {
+        snapshot.set(null);
+    }
+
+    public synchronized void put(Category category) {
+        Map<Long, CategoryEntry> entries = currentEntries();
+        entries.put(category.getCategoryId(), new CategoryEntry(category.getCategoryId(), category.getCategoryName()));
+        snapshot.set(Snapshot.of(entries.values()));
+    }
+
+    public synchronized void remove(Long categoryId) {
+        Map<Long, CategoryEntry> entries = currentEntries();
+        entries.remove(categoryId);
+        snapshot.set(Snapshot.of(entries.values()));
+    }
+
+    private Map<Long, CategoryEntry> currentEntries() {
+        Map<Long, CategoryEntry> entries = new HashMap<>();
+        snapshot().sortedById().forEach(entry -> entries.put(entry.categoryId(), entry));
+        return entries;
+    }
+}
@@ -0,0 +1,169 @@
+package com.ecommerce.project.cache;
+
+import com.ecommerce.project.exceptions.APIException;
+import com.ecommerce.project.model.IdempotencyRecord;
+import com.ecommerce.project.payload.OrderDTO;
+import com.ecommerce.project.repositories.IdempotencyRecordRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
+
+// Checkout results by Idempotency-Key. Executions in this instance are shared through the cache,
+// so a concurrent duplicate waits on the first one; the idempotency_keys table covers restarts
+// and other instances, whose duplicate insert blocks until the first checkout commits.
+@Component
+public class IdempotencyStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(IdempotencyStore.class);
+
+    private static final int MAX_KEY_LENGTH = 100;
+
+    @Autowired
+    private IdempotencyRecordRepository idempotencyRecordRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private final Cache<String, Execution> executions;
+    private final Duration ttl;
+
+    public IdempotencyStore(@Value("${project.idempotency.max-size:10000}") long maxSize,
+                            @Value("${project.idempotency.ttl-hours:24}") long ttlHours) {
+        this.ttl = Duration.ofHours(ttlHours);
+        this.executions = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .build();
+    }
+
+    public OrderDTO execute(String emailId, String key, String requestHash, Supplier<OrderDTO> checkout) {
+        if (key.isBlank() || key.length() > MAX_KEY_LENGTH)
+            throw new APIException("Idempotency-Key must be 1 to " + MAX_KEY_LENGTH + " characters");
+        String scopedKey = emailId + ":" + key;
+
+        CompletableFuture<OrderDTO> result = new CompletableFuture<>();
+        Execution existing = executions.asMap().putIfAbsent(scopedKey, new Execution(requestHash, result));
+        if (existing != null) {
+            checkRequest(existing.requestHash(), requestHash);
+            return await(existing.result());
+        }
+
+        try {
+            OrderDTO orderDTO = executeOnce(scopedKey, requestHash, checkout);
+            result.complete(orderDTO);
+            return orderDTO;
+        } catch (RuntimeException e) {
+            // a failed checkout can be retried with the same key, waiting duplicates get the same error
+            executions.invalidate(scopedKey);
+            result.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    private OrderDTO executeOnce(String scopedKey, String requestHash, Supplier<OrderDTO> checkout) {
+        try {
+            return transactionTemplate.execute(status -> {
+                LocalDateTime now = LocalDateTime.now();
+                IdempotencyRecord stored = idempotencyRecordRepository.findById(scopedKey).orElse(null);
+                if (stored != null && stored.getExpiresAt().isAfter(now))
+                    return replay(stored, requestHash);
+                if (stored != null) {
+                    idempotencyRecordRepository.delete(stored);
+                    idempotencyRecordRepository.flush();
+                }
+
+                // claimed before the checkout runs, the key row commits or rolls back with the order
+                IdempotencyRecord record = idempotencyRecordRepository.saveAndFlush(
+                        new IdempotencyRecord(scopedKey, requestHash, null, now, now.plus(ttl)));
+                OrderDTO orderDTO = checkout.get();
+                record.setResponse(serialize(orderDTO));
+                return orderDTO;
+            });
+        } catch (DataIntegrityViolationException e) {
+            // another instance committed the same key while we waited on its row
+            IdempotencyRecord stored = idempotencyRecordRepository.findById(scopedKey)
+                    .orElseThrow(() -> e);
+            logger.debug("Idempotency-Key {} was completed by another instance", scopedKey);
+            return replay(stored, requestHash);
+        }
+    }
+
+    private OrderDTO replay(IdempotencyRecord stored, String requestHash) {
+        checkRequest(stored.getRequestHash(), requestHash);
+        try {
+            return objectMapper.readValue(stored.getResponse(), OrderDTO.class);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not read stored response for " + stored.getIdempotencyKey(), e);
+        }
+    }
+
+    private String serialize(OrderDTO orderDTO) {
+        try {
+            return objectMapper.writeValueAsString(orderDTO);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize order " + orderDTO.getOrderId(), e);
+        }
+    }
+
+    private void checkRequest(String storedHash, String requestHash) {
+        if (!storedHash.equals(requestHash))
+            throw new APIException("Idempotency-Key was already used for a different request");
+    }
+
+    private OrderDTO await(CompletableFuture<OrderDTO> result) {
+        try {
+            return result.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause)
+                throw cause;
+            throw e;
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${project.idempotency.purge-interval-ms:3600000}")
+    public void purgeExpired() {
+        Integer deleted = transactionTemplate.execute(status ->
+                idempotencyRecordRepository.deleteExpiredBefore(LocalDateTime.now()));
+        if (deleted != null && deleted > 0)
+            logger.info("Purged {} expired idempotency keys", deleted);
+    }
+
+    public static String requestHash(Object... parts) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            for (Object part : parts) {
+                digest.update(Objects.toString(part, "").getBytes(StandardCharsets.UTF_8));
+                digest.update((byte) 0);
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private record Execution(String requestHash, CompletableFuture<OrderDTO> result) {
+    }
+}
@@ -0,0 +1,17 @@
+package com.ecommerce.project.cache;
+
+public record ProductPageKey(Long categoryId, Integer pageNumber, Integer pageSize, String sortBy, String sortOrder) {
+
+    public static ProductPageKey forAllProducts(Integer pageNumber, Integer pageSize, String sortBy, String sortOrder) {
+        return new ProductPageKey(null, pageNumber, pageSize, sortBy, normalize(sortOrder));
+    }
+
+    public static ProductPageKey forCategory(Long categoryId, Integer pageNumber, Integer pageSize, String sortBy, String sortOrder) {
+        return new ProductPageKey(categoryId, pageNumber, pageSize, sortBy, normalize(sortOrder));
+    }
+
+    // anything other than "asc" is sorted descending by the service, so share one entry for it
+    private static String normalize(String sortOrder) {
+        return sortOrder.equalsIgnoreCase("asc") ? "asc" : "desc";
+    }
+}
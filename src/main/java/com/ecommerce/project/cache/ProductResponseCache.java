@@ -0,0 +1,70 @@
+package com.ecommerce.project.cache;
+
+import com.ecommerce.project.payload.CacheStatsDTO;
+import com.ecommerce.project.payload.ProductResponse;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.function.Supplier;
+
+@Component
+public class ProductResponseCache {
+
+    private final Cache<ProductPageKey, ProductResponse> cache;
+
+    public ProductResponseCache(@Value("${project.cache.products.max-size:1000}") long maxSize,
+                                @Value("${project.cache.products.ttl-seconds:60}") long ttlSeconds) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+    }
+
+    public ProductResponse get(ProductPageKey key, Supplier<ProductResponse> loader) {
+        return cache.get(key, k -> loader.get());
+    }
+
+    // A product write can shift every page of the full listing, but only the pages of its own category.
+    // Inside a transaction the pages are dropped again after commit, as a reader may have
+    // cached the old rows in between.
+    public void invalidateCategory(Long categoryId) {
+        removeCategory(categoryId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    removeCategory(categoryId);
+                }
+            });
+        }
+    }
+
+    private void removeCategory(Long categoryId) {
+        cache.asMap().keySet().removeIf(key -> key.categoryId() == null || key.categoryId().equals(categoryId));
+    }
+
+    // pages cached here know nothing of writes made by other instances
+    @EventListener(CatalogChangedEvent.class)
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    public CacheStatsDTO stats() {
+        CacheStats stats = cache.stats();
+        return new CacheStatsDTO(
+                stats.hitCount(),
+                stats.missCount(),
+                stats.hitRate(),
+                stats.evictionCount(),
+                cache.estimatedSize()
+        );
+    }
+}
@@ -0,0 +1,417 @@
+package com.ecommerce.project.cache;
+
+import com.ecommerce.project.mapper.CartMapper;
+import com.ecommerce.project.model.Cart;
+import com.ecommerce.project.model.CartItem;
+import com.ecommerce.project.model.Product;
+import com.ecommerce.project.payload.ProductDTO;
+import com.ecommerce.project.repositories.CartItemRepository;
+import com.ecommerce.project.repositories.CartRepository;
+import com.ecommerce.project.repositories.ProductRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+// Optional cart engine: active carts live in memory keyed by user email and are written back
+// to carts/cart_items in coalesced batches. Disabled unless project.cart.write-behind.enabled=true,
+// in which case every public method below is a no-op.
+@Component
+public class WriteBehindCartStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(WriteBehindCartStore.class);
+
+    private static final int STRIPES = 64;
+
+    @Autowired
+    private CartRepository cartRepository;
+
+    @Autowired
+    private CartItemRepository cartItemRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private CartMapper cartMapper;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${project.cart.write-behind.enabled:false}")
+    private boolean enabled;
+
+    @Value("${project.cart.write-behind.batch-size:200}")
+    private int batchSize;
+
+    @Value("${project.cart.write-behind.idle-seconds:1800}")
+    private long idleSeconds;
+
+    private final Map<String, CartState> carts = new ConcurrentHashMap<>();
+    private final Map<Long, String> emailsByCartId = new ConcurrentHashMap<>();
+    private final Set<String> dirty = ConcurrentHashMap.newKeySet();
+    private final ReentrantLock[] stripes = new ReentrantLock[STRIPES];
+    // one writer at a time, so an older snapshot of a cart can never overwrite a newer one
+    private final ReentrantLock flushLock = new ReentrantLock();
+    // write-backs commit on their own, also when a flush is asked for inside a service transaction
+    private TransactionTemplate writeTemplate;
+
+    public WriteBehindCartStore() {
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+    }
+
+    @PostConstruct
+    public void init() {
+        writeTemplate = new TransactionTemplate(transactionTemplate.getTransactionManager());
+        writeTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public <T> T read(String email, Supplier<Cart> loader, Function<CartState, T> reader) {
+        ReentrantLock lock = stripe(email);
+        lock.lock();
+        try {
+            return reader.apply(load(email, loader));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // the cart is only marked dirty when the writer returns normally
+    public <T> T write(String email, Supplier<Cart> loader, Function<CartState, T> writer) {
+        ReentrantLock lock = stripe(email);
+        lock.lock();
+        try {
+            CartState cart = load(email, loader);
+            T result = writer.apply(cart);
+            dirty.add(email);
+            return result;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public String emailOf(Long cartId) {
+        return enabled ? emailsByCartId.get(cartId) : null;
+    }
+
+    public void flush(String email) {
+        if (enabled)
+            flush(List.of(email));
+    }
+
+    public void flushAll() {
+        if (enabled)
+            flush(new ArrayList<>(dirty));
+    }
+
+    // Checkout reads the cart from the database: write it through, then stop serving it from memory
+    public void flushAndEvict(String email) {
+        if (!enabled)
+            return;
+        flush(List.of(email));
+        evict(email);
+    }
+
+    public void flushCartsContaining(Long productId) {
+        flushCartsContaining(List.of(productId));
+    }
+
+    // Admin product changes work on the database rows of every cart holding the products: those carts
+    // are written out and then dropped from memory. It is done again after commit, as a cart may have
+    // been reloaded with the old rows in between.
+    public void flushCartsContaining(Collection<Long> productIds) {
+        if (!enabled)
+            return;
+        Set<Long> ids = Set.copyOf(productIds);
+        evictCartsContaining(ids);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evictCartsContaining(ids);
+                }
+            });
+        }
+    }
+
+    // A cart is only evicted once its changes are in the database. One whose write-back failed, or
+    // that was changed again meanwhile, is dirty again and stays in memory for the next flush,
+    // which writes it with the current product prices (see writeBatch).
+    private void evictCartsContaining(Set<Long> productIds) {
+        flushLock.lock();
+        try {
+            List<String> emails = new ArrayList<>();
+            List<CartSnapshot> batch = new ArrayList<>();
+            for (String email : new ArrayList<>(carts.keySet())) {
+                ReentrantLock lock = stripe(email);
+                lock.lock();
+                try {
+                    CartState cart = carts.get(email);
+                    if (cart == null || productIds.stream().noneMatch(productId -> cart.getLine(productId) != null))
+                        continue;
+                    emails.add(email);
+                    if (dirty.remove(email))
+                        batch.add(cart.snapshot());
+                } finally {
+                    lock.unlock();
+                }
+            }
+            for (int from = 0; from < batch.size(); from += batchSize) {
+                persist(batch.subList(from, Math.min(from + batchSize, batch.size())));
+            }
+            emails.forEach(this::remove);
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${project.cart.write-behind.flush-interval-ms:1000}")
+    public void flushDirty() {
+        if (!enabled)
+            return;
+        try {
+            flush(new ArrayList<>(dirty));
+        } catch (RuntimeException e) {
+            logger.error("Cart write-behind flush failed, {} carts left dirty", dirty.size(), e);
+        }
+        evictIdle();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (!enabled)
+            return;
+        logger.info("Flushing {} dirty carts before shutdown", dirty.size());
+        flush(new ArrayList<>(dirty));
+    }
+
+    private void flush(Collection<String> emails) {
+        flushLock.lock();
+        try {
+            List<CartSnapshot> batch = new ArrayList<>();
+            for (String email : emails) {
+                CartSnapshot snapshot = snapshot(email);
+                if (snapshot != null)
+                    batch.add(snapshot);
+                if (batch.size() == batchSize) {
+                    persist(batch);
+                    batch = new ArrayList<>();
+                }
+            }
+            if (!batch.isEmpty())
+                persist(batch);
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    private CartSnapshot snapshot(String email) {
+        ReentrantLock lock = stripe(email);
+        lock.lock();
+        try {
+            CartState cart = carts.get(email);
+            if (!dirty.remove(email) || cart == null)
+                return null;
+            return cart.snapshot();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // a failing batch is retried cart by cart, so one bad cart cannot hold back the others
+    private void persist(List<CartSnapshot> batch) {
+        try {
+            writeTemplate.executeWithoutResult(status -> writeBatch(batch));
+        } catch (RuntimeException e) {
+            if (batch.size() == 1) {
+                CartSnapshot snapshot = batch.get(0);
+                logger.error("Cart {} of {} could not be written back, left dirty", snapshot.cartId(), snapshot.email(), e);
+                dirty.add(snapshot.email());
+                return;
+            }
+            logger.warn("Cart write-behind batch of {} failed, retrying one cart at a time: {}", batch.size(), e.getMessage());
+            batch.forEach(snapshot -> persist(List.of(snapshot)));
+        }
+    }
+
+    // replaces the stored lines of every cart in the batch: one delete, one cart select, one product select,
+    // one item insert batch. Prices come from the products as they are now, so a cart written back after
+    // an admin reprice or delete cannot bring back the old price or the deleted product.
+    private void writeBatch(List<CartSnapshot> batch) {
+        List<Long> cartIds = batch.stream().map(CartSnapshot::cartId).collect(Collectors.toList());
+        cartItemRepository.deleteCartItemsByCartIdIn(cartIds);
+        Map<Long, Cart> cartsById = cartRepository.findAllById(cartIds).stream()
+                .collect(Collectors.toMap(Cart::getCartId, Function.identity()));
+        Set<Long> productIds = batch.stream()
+                .flatMap(snapshot -> snapshot.lines().stream())
+                .map(CartLine::productId)
+                .collect(Collectors.toSet());
+        Map<Long, Product> productsById = productRepository.findAllById(productIds).stream()
+                .collect(Collectors.toMap(Product::getProductId, Function.identity()));
+
+        List<CartItem> cartItems = new ArrayList<>();
+        for (CartSnapshot snapshot : batch) {
+            Cart cart = cartsById.get(snapshot.cartId());
+            if (cart == null)
+                continue;
+            double totalPrice = 0.0;
+            for (CartLine line : snapshot.lines()) {
+                Product product = productsById.get(line.productId());
+                if (product == null)
+                    continue;
+                CartItem cartItem = new CartItem();
+                cartItem.setCart(cart);
+                cartItem.setProduct(product);
+                cartItem.setQuantity(line.quantity());
+                cartItem.setDiscount(product.getDiscount());
+                cartItem.setProductPrice(product.getSpecialPrice());
+                cartItems.add(cartItem);
+                totalPrice += product.getSpecialPrice() * line.quantity();
+            }
+            cart.setTotalPrice(totalPrice);
+            // lines are replaced with bulk statements, so the cart row is touched explicitly
+            cart.setLastModified(LocalDateTime.now());
+        }
+        cartItemRepository.saveAll(cartItems);
+        logger.debug("Flushed {} carts with {} items", batch.size(), cartItems.size());
+    }
+
+    private CartState load(String email, Supplier<Cart> loader) {
+        CartState cart = carts.get(email);
+        if (cart == null) {
+            cart = transactionTemplate.execute(status -> {
+                Cart entity = loader.get();
+                CartState state = new CartState(entity.getCartId(), email);
+                for (CartItem cartItem : entity.getCartItems()) {
+                    state.putLine(new CartLine(cartMapper.toProductDTO(cartItem), cartItem.getQuantity(),
+                            cartItem.getDiscount(), cartItem.getProductPrice()));
+                }
+                return state;
+            });
+            carts.put(email, cart);
+            emailsByCartId.put(cart.getCartId(), email);
+        }
+        cart.lastAccess = System.currentTimeMillis();
+        return cart;
+    }
+
+    // dropped now and, inside a transaction, again after commit so a concurrent
+    // reader cannot keep the pre-commit rows in memory
+    private void evict(String email) {
+        remove(email);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    remove(email);
+                }
+            });
+        }
+    }
+
+    private void remove(String email) {
+        ReentrantLock lock = stripe(email);
+        lock.lock();
+        try {
+            if (dirty.contains(email))
+                return;
+            CartState cart = carts.remove(email);
+            if (cart != null)
+                emailsByCartId.remove(cart.getCartId());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void evictIdle() {
+        long idleBefore = System.currentTimeMillis() - idleSeconds * 1000;
+        carts.forEach((email, cart) -> {
+            if (cart.lastAccess < idleBefore)
+                remove(email);
+        });
+    }
+
+    private ReentrantLock stripe(String email) {
+        return stripes[(email.hashCode() & 0x7fffffff) % STRIPES];
+    }
+
+    // Only touched while holding the stripe lock of its email
+    public static class CartState {
+        private final Long cartId;
+        private final String email;
+        private final Map<Long, CartLine> lines = new LinkedHashMap<>();
+        private volatile long lastAccess;
+
+        CartState(Long cartId, String email) {
+            this.cartId = cartId;
+            this.email = email;
+        }
+
+        public Long getCartId() {
+            return cartId;
+        }
+
+        public String getEmail() {
+            return email;
+        }
+
+        public CartLine getLine(Long productId) {
+            return lines.get(productId);
+        }
+
+        public Collection<CartLine> getLines() {
+            return lines.values();
+        }
+
+        public void putLine(CartLine line) {
+            lines.put(line.productId(), line);
+        }
+
+        public CartLine removeLine(Long productId) {
+            return lines.remove(productId);
+        }
+
+        public double getTotalPrice() {
+            double total = 0.0;
+            for (CartLine line : lines.values()) {
+                total += line.productPrice() * line.quantity();
+            }
+            return total;
+        }
+
+        CartSnapshot snapshot() {
+            return new CartSnapshot(cartId, email, List.copyOf(lines.values()));
+        }
+    }
+
+    public record CartLine(ProductDTO product, int quantity, double discount, double productPrice) {
+        public Long productId() {
+            return product.getProductId();
+        }
+    }
+
+    private record CartSnapshot(Long cartId, String email, List<CartLine> lines) {
+    }
+}
@@ -3,6 +3,8 @@ package com.ecommerce.project.config;
 public class AppConstants {
     public static final String PAGE_NUMBER="0";
     public static final String PAGE_SIZE="60";
+    // upper bound for cursor-paged listings, each page is read into memory in one go
+    public static final int MAX_PAGE_SIZE = 500;
     public static final String SORT_CATEGORIES_BY = "categoryId" ;
     public static final String SORT_PRODUCTS_BY = "productId" ;
     public static final String SORT_DIR = "asc";
@@ -1,12 +1,16 @@
 package com.ecommerce.project.contoller;
 
-import com.ecommerce.project.model.Cart;
 import com.ecommerce.project.model.Product;
+import com.ecommerce.project.payload.CartBatchRequest;
 import com.ecommerce.project.payload.CartDTO;
+import com.ecommerce.project.payload.CartReaperStatsDTO;
+import com.ecommerce.project.payload.CartResponse;
 import com.ecommerce.project.payload.ProductDTO;
-import com.ecommerce.project.repositories.CartRepository;
+import com.ecommerce.project.config.AppConstants;
+import com.ecommerce.project.service.AbandonedCartReaper;
 import com.ecommerce.project.service.CartService;
 import com.ecommerce.project.util.AuthUtil;
+import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -18,15 +22,15 @@ import java.util.List;
 @RequestMapping("/api")
 public class CartController {
 
-    @Autowired
-    private CartRepository cartRepository;
-
     @Autowired
     private AuthUtil authUtil;
 
     @Autowired
     private CartService cartService;
 
+    @Autowired
+    private AbandonedCartReaper abandonedCartReaper;
+
     @PostMapping("/carts/products/{productId}/quantity/{quantity}")
     public ResponseEntity<CartDTO> addProductToCart(@PathVariable Long productId,
                                                     @PathVariable Integer quantity){
@@ -35,17 +39,17 @@ public class CartController {
     }
 
     @GetMapping("/carts")
-    public ResponseEntity<List<CartDTO>> getCarts(){
-        List<CartDTO> cartDTOS = cartService.getAllCarts();
-        return new ResponseEntity<List<CartDTO>>(cartDTOS, HttpStatus.FOUND);
+    public ResponseEntity<CartResponse> getCarts(
+            @RequestParam(name = "cursor", required = false) String cursor,
+            @RequestParam(name = "pageSize", defaultValue = AppConstants.PAGE_SIZE, required = false) Integer pageSize){
+        CartResponse cartResponse = cartService.getAllCarts(cursor, pageSize);
+        return new ResponseEntity<>(cartResponse, HttpStatus.FOUND);
     }
 
     @GetMapping("/carts/users/cart")
     public ResponseEntity<CartDTO> getCartById(){
         String emailId = authUtil.loggedInEmail();
-        Cart cart = cartRepository.findCartByEmail(emailId);
-        Long cartId = cart.getCartId();
-        CartDTO cartDTO = cartService.getCart(emailId, cartId);
+        CartDTO cartDTO = cartService.getUserCart(emailId);
         return new ResponseEntity<>(cartDTO, HttpStatus.OK);
     }
 
@@ -57,6 +61,12 @@ public class CartController {
         return new ResponseEntity<CartDTO>(cartDTO, HttpStatus.OK);
     }
 
+    @PutMapping("/cart/products")
+    public ResponseEntity<CartDTO> updateCartProducts(@Valid @RequestBody CartBatchRequest cartBatchRequest){
+        CartDTO cartDTO = cartService.updateCartProducts(cartBatchRequest.getOperations());
+        return new ResponseEntity<>(cartDTO, HttpStatus.OK);
+    }
+
     @DeleteMapping("/carts/{cartId}/product/{productId}")
     public ResponseEntity<String> deleteProductFromCart(@PathVariable Long cartId,
                                                         @PathVariable Long productId){
@@ -64,4 +74,10 @@ public class CartController {
         return new ResponseEntity<>(status, HttpStatus.OK);
 
     }
+
+    @GetMapping("/admin/carts/reaper/stats")
+    public ResponseEntity<CartReaperStatsDTO> getCartReaperStats(){
+        CartReaperStatsDTO reaperStats = abandonedCartReaper.stats();
+        return new ResponseEntity<>(reaperStats, HttpStatus.OK);
+    }
 }
@@ -24,9 +24,12 @@ public class CategoryController {
             @RequestParam(name = "pageNumber", defaultValue = AppConstants.PAGE_NUMBER, required = false) Integer pageNumber,
             @RequestParam(name = "pageSize", defaultValue = AppConstants.PAGE_SIZE, required = false) Integer pageSize,
             @RequestParam(name = "sortBy", defaultValue = AppConstants.SORT_CATEGORIES_BY, required = false) String sortBy,
-            @RequestParam(name = "sortOrder", defaultValue = AppConstants.SORT_DIR, required = false) String sortDir
+            @RequestParam(name = "sortOrder", defaultValue = AppConstants.SORT_DIR, required = false) String sortDir,
+            @RequestParam(name = "cursor", required = false) String cursor
             ){
-        CategoryResponse categories = categoryService.getAllCategories(pageNumber, pageSize, sortBy, sortDir);
+        CategoryResponse categories = cursor != null
+                ? categoryService.getAllCategoriesByCursor(cursor, pageSize, sortBy, sortDir)
+                : categoryService.getAllCategories(pageNumber, pageSize, sortBy, sortDir);
         return new ResponseEntity<>(categories, HttpStatus.OK);
     }
 
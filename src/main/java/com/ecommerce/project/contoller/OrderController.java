@@ -1,13 +1,28 @@
 package com.ecommerce.project.contoller;
 
+import com.ecommerce.project.cache.IdempotencyStore;
+import com.ecommerce.project.config.AppConstants;
+import com.ecommerce.project.exceptions.APIException;
+import com.ecommerce.project.payload.CheckoutStatsDTO;
 import com.ecommerce.project.payload.OrderDTO;
 import com.ecommerce.project.payload.OrderRequestDTO;
+import com.ecommerce.project.payload.OrderResponse;
+import com.ecommerce.project.payload.OrderStatusDTO;
+import com.ecommerce.project.service.CheckoutWorker;
+import com.ecommerce.project.service.OrderExportService;
 import com.ecommerce.project.service.OrderService;
 import com.ecommerce.project.util.AuthUtil;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.time.LocalDate;
+import java.util.function.Supplier;
 
 @RestController
 @RequestMapping("/api")
@@ -16,13 +31,23 @@ public class OrderController {
     @Autowired
     private OrderService orderService;
 
+    @Autowired
+    private CheckoutWorker checkoutWorker;
+
+    @Autowired
+    private OrderExportService orderExportService;
+
+    @Autowired
+    private IdempotencyStore idempotencyStore;
+
     @Autowired
     private AuthUtil authUtil;
 
     @PostMapping("/order/users/payments/{paymentMethod}")
-    public ResponseEntity<OrderDTO> orderProducts(@PathVariable String paymentMethod, @RequestBody OrderRequestDTO orderRequestDTO) {
+    public ResponseEntity<OrderDTO> orderProducts(@PathVariable String paymentMethod, @RequestBody OrderRequestDTO orderRequestDTO,
+                                                  @RequestHeader(name = "Idempotency-Key", required = false) String idempotencyKey) {
         String emailId = authUtil.loggedInEmail();
-        OrderDTO order = orderService.placeOrder(
+        Supplier<OrderDTO> checkout = () -> orderService.placeOrder(
                 emailId,
                 orderRequestDTO.getAddressId(),
                 paymentMethod,
@@ -31,6 +56,80 @@ public class OrderController {
                 orderRequestDTO.getPgStatus(),
                 orderRequestDTO.getPgResponseMessage()
         );
+        // a retried request with the same key gets the original order back instead of a second one
+        OrderDTO order = idempotencyKey == null
+                ? checkout.get()
+                : idempotencyStore.execute(emailId, idempotencyKey,
+                        IdempotencyStore.requestHash(paymentMethod, orderRequestDTO.getAddressId(), orderRequestDTO.getPgName(),
+                                orderRequestDTO.getPgPaymentId(), orderRequestDTO.getPgStatus(), orderRequestDTO.getPgResponseMessage()),
+                        checkout);
         return new ResponseEntity<>(order, HttpStatus.CREATED);
     }
+
+    // the order is stored as pending, stock and cart are handled by the checkout worker
+    @PostMapping("/order/users/payments/{paymentMethod}/async")
+    public ResponseEntity<OrderStatusDTO> orderProductsAsync(@PathVariable String paymentMethod, @RequestBody OrderRequestDTO orderRequestDTO) {
+        String emailId = authUtil.loggedInEmail();
+        checkoutWorker.checkCapacity();
+        OrderStatusDTO orderStatus = orderService.acceptOrder(
+                emailId,
+                orderRequestDTO.getAddressId(),
+                paymentMethod,
+                orderRequestDTO.getPgName(),
+                orderRequestDTO.getPgPaymentId(),
+                orderRequestDTO.getPgStatus(),
+                orderRequestDTO.getPgResponseMessage()
+        );
+        checkoutWorker.submit(orderStatus.getOrderId());
+        return new ResponseEntity<>(orderStatus, HttpStatus.ACCEPTED);
+    }
+
+    @GetMapping("/order/users/orders/{orderId}/status")
+    public ResponseEntity<OrderStatusDTO> getOrderStatus(@PathVariable Long orderId) {
+        String emailId = authUtil.loggedInEmail();
+        OrderStatusDTO orderStatus = orderService.getOrderStatus(emailId, orderId);
+        return new ResponseEntity<>(orderStatus, HttpStatus.OK);
+    }
+
+    @GetMapping("/order/users/orders")
+    public ResponseEntity<OrderResponse> getUserOrders(
+            @RequestParam(name = "cursor", required = false) String cursor,
+            @RequestParam(name = "pageSize", defaultValue = AppConstants.PAGE_SIZE, required = false) Integer pageSize) {
+        String emailId = authUtil.loggedInEmail();
+        OrderResponse orderResponse = orderService.getUserOrders(emailId, cursor, pageSize);
+        return new ResponseEntity<>(orderResponse, HttpStatus.OK);
+    }
+
+    @GetMapping("/admin/orders")
+    public ResponseEntity<OrderResponse> searchOrders(
+            @RequestParam(name = "email", required = false) String email,
+            @RequestParam(name = "status", required = false) String status,
+            @RequestParam(name = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(name = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(name = "cursor", required = false) String cursor,
+            @RequestParam(name = "pageSize", defaultValue = AppConstants.PAGE_SIZE, required = false) Integer pageSize) {
+        OrderResponse orderResponse = orderService.searchOrders(email, status, from, to, cursor, pageSize);
+        return new ResponseEntity<>(orderResponse, HttpStatus.OK);
+    }
+
+    @GetMapping(value = "/admin/orders/export", produces = OrderExportService.CSV_GZIP)
+    public ResponseEntity<StreamingResponseBody> exportOrders(
+            @RequestParam(name = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(name = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        // checked up front, once streaming has started the response can no longer become an error
+        if (from != null && to != null && from.isAfter(to)) {
+            throw new APIException("Export start " + from + " is after its end " + to);
+        }
+        StreamingResponseBody body = outputStream -> orderExportService.exportOrders(outputStream, from, to);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(OrderExportService.CSV_GZIP))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"orders.csv.gz\"")
+                .body(body);
+    }
+
+    @GetMapping("/admin/orders/checkout/stats")
+    public ResponseEntity<CheckoutStatsDTO> getCheckoutStats() {
+        CheckoutStatsDTO checkoutStats = checkoutWorker.stats();
+        return new ResponseEntity<>(checkoutStats, HttpStatus.OK);
+    }
 }
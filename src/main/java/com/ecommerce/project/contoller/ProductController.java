@@ -1,17 +1,27 @@
 package com.ecommerce.project.contoller;
 
+import com.ecommerce.project.cache.CatalogVersion;
 import com.ecommerce.project.config.AppConstants;
+import com.ecommerce.project.payload.CacheStatsDTO;
 import com.ecommerce.project.payload.ProductDTO;
+import com.ecommerce.project.payload.ProductImportResponse;
 import com.ecommerce.project.payload.ProductResponse;
+import com.ecommerce.project.service.ProductExportService;
+import com.ecommerce.project.service.ProductImportService;
 import com.ecommerce.project.service.ProductService;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.io.IOException;
+import java.io.InputStream;
 
 @RestController
 @RequestMapping("/api/")
@@ -20,6 +30,15 @@ public class ProductController {
     @Autowired
     ProductService productService;
 
+    @Autowired
+    ProductImportService productImportService;
+
+    @Autowired
+    ProductExportService productExportService;
+
+    @Autowired
+    CatalogVersion catalogVersion;
+
     @PostMapping("admin/categories/{categoryId}/product")
     public ResponseEntity<ProductDTO> addProduct(@Valid @RequestBody ProductDTO productDTO,
                                                  @PathVariable Long categoryId){
@@ -27,15 +46,45 @@ public class ProductController {
         return new ResponseEntity<>(savedproductDTO, HttpStatus.CREATED);
     }
 
+    @PostMapping(value = "admin/categories/{categoryId}/products/import",
+            consumes = {ProductImportService.CSV, ProductImportService.NDJSON})
+    public ResponseEntity<ProductImportResponse> importProducts(@PathVariable Long categoryId,
+                                                                @RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+                                                                InputStream inputStream) throws IOException {
+        String format = contentType.startsWith(ProductImportService.CSV) ? ProductImportService.CSV : ProductImportService.NDJSON;
+        ProductImportResponse importResponse = productImportService.importProducts(categoryId, inputStream, format);
+        return new ResponseEntity<>(importResponse, HttpStatus.OK);
+    }
+
     @GetMapping("public/products")
     public ResponseEntity<ProductResponse> getAllProducts(
             @RequestParam(name = "pageNumber", defaultValue = AppConstants.PAGE_NUMBER, required = false) Integer pageNumber,
             @RequestParam(name = "pageSize", defaultValue = AppConstants.PAGE_SIZE, required = false) Integer pageSize,
             @RequestParam(name = "sortBy", defaultValue = AppConstants.SORT_PRODUCTS_BY, required = false) String sortBy,
-            @RequestParam(name = "sortOrder", defaultValue = AppConstants.SORT_DIR, required = false) String sortOrder
+            @RequestParam(name = "sortOrder", defaultValue = AppConstants.SORT_DIR, required = false) String sortOrder,
+            @RequestParam(name = "cursor", required = false) String cursor,
+            WebRequest webRequest
     ){
-        ProductResponse productResponse = productService.getAllProducts(pageNumber, pageSize, sortBy, sortOrder);
-        return new ResponseEntity<>(productResponse, HttpStatus.OK);
+        // unchanged catalog: answer 304 before touching the database
+        String etag = catalogVersion.etag("products", pageNumber, pageSize, sortBy, sortOrder, cursor);
+        if(webRequest.checkNotModified(etag))
+            return null;
+
+        // any cursor, even an empty one, switches to keyset pagination
+        ProductResponse productResponse = cursor != null
+                ? productService.getAllProductsByCursor(cursor, pageSize, sortBy, sortOrder)
+                : productService.getAllProducts(pageNumber, pageSize, sortBy, sortOrder);
+        return ResponseEntity.ok().eTag(etag).body(productResponse);
+    }
+
+    @GetMapping(value = "public/products/export", produces = ProductImportService.NDJSON)
+    public ResponseEntity<StreamingResponseBody> exportProducts(){
+        // rows are written as they are read, nothing is buffered per request
+        StreamingResponseBody body = productExportService::exportProducts;
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(ProductImportService.NDJSON))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"products.ndjson\"")
+                .body(body);
     }
 
     @GetMapping("public/categories/{categoryId}/products")
@@ -44,10 +93,18 @@ public class ProductController {
             @RequestParam(name = "pageNumber", defaultValue = AppConstants.PAGE_NUMBER, required = false) Integer pageNumber,
             @RequestParam(name = "pageSize", defaultValue = AppConstants.PAGE_SIZE, required = false) Integer pageSize,
             @RequestParam(name = "sortBy", defaultValue = AppConstants.SORT_PRODUCTS_BY, required = false) String sortBy,
-            @RequestParam(name = "sortOrder", defaultValue = AppConstants.SORT_DIR, required = false) String sortOrder
+            @RequestParam(name = "sortOrder", defaultValue = AppConstants.SORT_DIR, required = false) String sortOrder,
+            @RequestParam(name = "cursor", required = false) String cursor,
+            WebRequest webRequest
 ){
-        ProductResponse productResponse = productService.serchByCategoryId(categoryId, pageNumber, pageSize, sortBy, sortOrder);
-        return new ResponseEntity<>(productResponse, HttpStatus.OK);
+        String etag = catalogVersion.etag("categoryProducts", categoryId, pageNumber, pageSize, sortBy, sortOrder, cursor);
+        if(webRequest.checkNotModified(etag))
+            return null;
+
+        ProductResponse productResponse = cursor != null
+                ? productService.serchByCategoryIdByCursor(categoryId, cursor, pageSize, sortBy, sortOrder)
+                : productService.serchByCategoryId(categoryId, pageNumber, pageSize, sortBy, sortOrder);
+        return ResponseEntity.ok().eTag(etag).body(productResponse);
     }
 
     @GetMapping("public/products/keyword/{keyword}")
@@ -75,6 +132,20 @@ public class ProductController {
         return new ResponseEntity<>(productResponse, HttpStatus.OK);
     }
 
+    // flash-sale products: checkouts reserve from one of the shards instead of the single products row
+    @PutMapping("admin/products/{productId}/stock/shards")
+    public ResponseEntity<ProductDTO> shardProductStock(@PathVariable Long productId,
+                                                        @RequestParam(name = "shards") Integer shards){
+        ProductDTO productResponse = productService.shardProductStock(productId, shards);
+        return new ResponseEntity<>(productResponse, HttpStatus.OK);
+    }
+
+    @DeleteMapping("admin/products/{productId}/stock/shards")
+    public ResponseEntity<ProductDTO> unshardProductStock(@PathVariable Long productId){
+        ProductDTO productResponse = productService.unshardProductStock(productId);
+        return new ResponseEntity<>(productResponse, HttpStatus.OK);
+    }
+
     @PutMapping("products/{productId}/image")
     public ResponseEntity<ProductDTO> updateProductImage(@PathVariable Long productId,
                                                          @RequestParam("Image") MultipartFile image) throws IOException {
@@ -82,4 +153,10 @@ public class ProductController {
         return new ResponseEntity<>(updateProduct, HttpStatus.OK);
     }
 
+    @GetMapping("admin/products/cache/stats")
+    public ResponseEntity<CacheStatsDTO> getProductCacheStats(){
+        CacheStatsDTO cacheStats = productService.getProductCacheStats();
+        return new ResponseEntity<>(cacheStats, HttpStatus.OK);
+    }
+
 }
@@ -0,0 +1,60 @@
+package com.ecommerce.project.contoller;
+
+import com.ecommerce.project.payload.CategorySalesDTO;
+import com.ecommerce.project.payload.DailySalesDTO;
+import com.ecommerce.project.payload.ProductSalesDTO;
+import com.ecommerce.project.service.SalesReportService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/admin/reports/sales")
+public class SalesReportController {
+
+    private static final int DEFAULT_RANGE_DAYS = 30;
+
+    @Autowired
+    private SalesReportService salesReportService;
+
+    @GetMapping("/daily")
+    public ResponseEntity<List<DailySalesDTO>> getDailySales(
+            @RequestParam(name = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(name = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        LocalDate end = to != null ? to : LocalDate.now();
+        List<DailySalesDTO> dailySales = salesReportService.getDailySales(start(from, end), end);
+        return new ResponseEntity<>(dailySales, HttpStatus.OK);
+    }
+
+    @GetMapping("/products")
+    public ResponseEntity<List<ProductSalesDTO>> getTopProductSales(
+            @RequestParam(name = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(name = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(name = "limit", defaultValue = "50", required = false) Integer limit) {
+        LocalDate end = to != null ? to : LocalDate.now();
+        List<ProductSalesDTO> productSales = salesReportService.getTopProductSales(start(from, end), end, limit);
+        return new ResponseEntity<>(productSales, HttpStatus.OK);
+    }
+
+    @GetMapping("/categories")
+    public ResponseEntity<List<CategorySalesDTO>> getCategorySales(
+            @RequestParam(name = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(name = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        LocalDate end = to != null ? to : LocalDate.now();
+        List<CategorySalesDTO> categorySales = salesReportService.getCategorySales(start(from, end), end);
+        return new ResponseEntity<>(categorySales, HttpStatus.OK);
+    }
+
+    // without a start the report covers the last 30 days up to its end
+    private LocalDate start(LocalDate from, LocalDate end) {
+        return from != null ? from : end.minusDays(DEFAULT_RANGE_DAYS - 1);
+    }
+}
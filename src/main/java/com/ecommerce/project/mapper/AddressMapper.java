@@ -0,0 +1,40 @@
+package com.ecommerce.project.mapper;
+
+import com.ecommerce.project.model.Address;
+import com.ecommerce.project.payload.AddressDTO;
+import org.springframework.stereotype.Component;
+
+@Component
+public class AddressMapper extends FallbackMapper {
+
+    public AddressDTO toDTO(Address address) {
+        if (modelMapperFallback)
+            return modelMapper.map(address, AddressDTO.class);
+
+        return new AddressDTO(
+                address.getAddressId(),
+                address.getStreet(),
+                address.getBuildingName(),
+                address.getCity(),
+                address.getState(),
+                address.getCountry(),
+                address.getPincode()
+        );
+    }
+
+    public Address toEntity(AddressDTO addressDTO) {
+        if (modelMapperFallback)
+            return modelMapper.map(addressDTO, Address.class);
+
+        Address address = new Address(
+                addressDTO.getStreet(),
+                addressDTO.getBuildingName(),
+                addressDTO.getCity(),
+                addressDTO.getState(),
+                addressDTO.getCountry(),
+                addressDTO.getPincode()
+        );
+        address.setAddressId(addressDTO.getAddressId());
+        return address;
+    }
+}
@@ -0,0 +1,76 @@
+package com.ecommerce.project.mapper;
+
+import com.ecommerce.project.cache.WriteBehindCartStore;
+import com.ecommerce.project.model.Cart;
+import com.ecommerce.project.model.CartItem;
+import com.ecommerce.project.payload.CartDTO;
+import com.ecommerce.project.payload.ProductDTO;
+import com.ecommerce.project.repositories.CartLineRow;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@Component
+public class CartMapper extends FallbackMapper {
+
+    @Autowired
+    private ProductMapper productMapper;
+
+    public void setProductMapper(ProductMapper productMapper) {
+        this.productMapper = productMapper;
+    }
+
+    // Each product of the cart carries the quantity held in the cart, not the stock quantity
+    public CartDTO toDTO(Cart cart) {
+        CartDTO cartDTO;
+        if (modelMapperFallback) {
+            cartDTO = modelMapper.map(cart, CartDTO.class);
+        } else {
+            cartDTO = new CartDTO();
+            cartDTO.setCartId(cart.getCartId());
+            cartDTO.setTotalPrice(cart.getTotalPrice());
+        }
+
+        List<ProductDTO> products = new ArrayList<>(cart.getCartItems().size());
+        for (CartItem cartItem : cart.getCartItems()) {
+            products.add(toProductDTO(cartItem));
+        }
+        cartDTO.setProducts(products);
+        return cartDTO;
+    }
+
+    public CartDTO toDTO(WriteBehindCartStore.CartState cart) {
+        List<ProductDTO> products = new ArrayList<>();
+        for (WriteBehindCartStore.CartLine line : cart.getLines()) {
+            ProductDTO productDTO = line.product();
+            products.add(new ProductDTO(productDTO.getProductId(), productDTO.getProductName(), productDTO.getImage(),
+                    productDTO.getDescription(), line.quantity(), productDTO.getPrice(), productDTO.getDiscount(),
+                    productDTO.getSpecialPrice()));
+        }
+        return new CartDTO(cart.getCartId(), cart.getTotalPrice(), products);
+    }
+
+    // rows of the same cart must be adjacent, as returned by the CartRepository line queries
+    public List<CartDTO> toDTOs(List<CartLineRow> rows) {
+        Map<Long, CartDTO> carts = new LinkedHashMap<>();
+        for (CartLineRow row : rows) {
+            CartDTO cartDTO = carts.computeIfAbsent(row.cartId(),
+                    cartId -> new CartDTO(cartId, row.totalPrice(), new ArrayList<>()));
+            if (row.productId() != null) {
+                cartDTO.getProducts().add(new ProductDTO(row.productId(), row.productName(), row.image(),
+                        row.description(), row.quantity(), row.price(), row.discount(), row.specialPrice()));
+            }
+        }
+        return new ArrayList<>(carts.values());
+    }
+
+    public ProductDTO toProductDTO(CartItem cartItem) {
+        ProductDTO productDTO = productMapper.toDTO(cartItem.getProduct());
+        productDTO.setQuantity(cartItem.getQuantity());
+        return productDTO;
+    }
+}
@@ -0,0 +1,26 @@
+package com.ecommerce.project.mapper;
+
+import com.ecommerce.project.model.Category;
+import com.ecommerce.project.payload.CategoryDTO;
+import org.springframework.stereotype.Component;
+
+@Component
+public class CategoryMapper extends FallbackMapper {
+
+    public CategoryDTO toDTO(Category category) {
+        if (modelMapperFallback)
+            return modelMapper.map(category, CategoryDTO.class);
+
+        return new CategoryDTO(category.getCategoryId(), category.getCategoryName());
+    }
+
+    public Category toEntity(CategoryDTO categoryDTO) {
+        if (modelMapperFallback)
+            return modelMapper.map(categoryDTO, Category.class);
+
+        Category category = new Category();
+        category.setCategoryId(categoryDTO.getCategoryId());
+        category.setCategoryName(categoryDTO.getCategoryName());
+        return category;
+    }
+}
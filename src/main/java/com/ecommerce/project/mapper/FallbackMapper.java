@@ -0,0 +1,24 @@
+package com.ecommerce.project.mapper;
+
+import org.modelmapper.ModelMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+
+// Explicit mappers replace reflective ModelMapper on the hot paths; the flag
+// switches every mapper back to ModelMapper while they are being rolled out
+public abstract class FallbackMapper {
+
+    @Autowired
+    protected ModelMapper modelMapper;
+
+    @Value("${project.mapping.model-mapper-fallback:false}")
+    protected boolean modelMapperFallback;
+
+    public void setModelMapperFallback(boolean modelMapperFallback) {
+        this.modelMapperFallback = modelMapperFallback;
+    }
+
+    public void setModelMapper(ModelMapper modelMapper) {
+        this.modelMapper = modelMapper;
+    }
+}
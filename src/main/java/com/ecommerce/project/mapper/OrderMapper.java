@@ -0,0 +1,104 @@
+package com.ecommerce.project.mapper;
+
+import com.ecommerce.project.model.Order;
+import com.ecommerce.project.model.OrderItem;
+import com.ecommerce.project.model.Payment;
+import com.ecommerce.project.payload.OrderDTO;
+import com.ecommerce.project.payload.OrderItemDTO;
+import com.ecommerce.project.payload.PaymentDTO;
+import com.ecommerce.project.payload.ProductDTO;
+import com.ecommerce.project.repositories.OrderItemRow;
+import com.ecommerce.project.repositories.OrderRow;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@Component
+public class OrderMapper extends FallbackMapper {
+
+    @Autowired
+    private ProductMapper productMapper;
+
+    public void setProductMapper(ProductMapper productMapper) {
+        this.productMapper = productMapper;
+    }
+
+    public OrderDTO toDTO(Order order) {
+        return toDTO(order, order.getOrderItems());
+    }
+
+    // Order items are saved separately from the order, so they are passed in explicitly
+    public OrderDTO toDTO(Order order, List<OrderItem> orderItems) {
+        OrderDTO orderDTO;
+        if (modelMapperFallback) {
+            orderDTO = modelMapper.map(order, OrderDTO.class);
+            orderDTO.setOrderItems(new ArrayList<>());
+        } else {
+            orderDTO = new OrderDTO();
+            orderDTO.setOrderId(order.getOrderId());
+            orderDTO.setEmail(order.getEmail());
+            orderDTO.setOrderDate(order.getOrderDate());
+            orderDTO.setPayment(toPaymentDTO(order.getPayment()));
+            orderDTO.setTotalAmount(order.getTotalAmount());
+            orderDTO.setOrderStatus(order.getOrderStatus());
+            orderDTO.setOrderItems(new ArrayList<>(orderItems.size()));
+        }
+        orderItems.forEach(item -> orderDTO.getOrderItems().add(toOrderItemDTO(item)));
+        if (order.getAddress() != null)
+            orderDTO.setAddressId(order.getAddress().getAddressId());
+        return orderDTO;
+    }
+
+    // Order history pages: the items only carry what was ordered, not the current product details
+    public List<OrderDTO> toDTOs(List<OrderRow> orderRows, List<OrderItemRow> itemRows) {
+        Map<Long, OrderDTO> orders = new LinkedHashMap<>();
+        for (OrderRow row : orderRows) {
+            PaymentDTO paymentDTO = row.paymentId() == null ? null : new PaymentDTO(row.paymentId(),
+                    row.paymentMethod(), row.pgPaymentId(), row.pgStatus(), row.pgResponseMessage(), row.pgName());
+            orders.put(row.orderId(), new OrderDTO(row.orderId(), row.email(), new ArrayList<>(), row.orderDate(),
+                    paymentDTO, row.totalAmount(), row.orderStatus(), row.addressId()));
+        }
+        for (OrderItemRow row : itemRows) {
+            OrderDTO orderDTO = orders.get(row.orderId());
+            if (orderDTO == null)
+                continue;
+            ProductDTO productDTO = new ProductDTO();
+            productDTO.setProductId(row.productId());
+            productDTO.setProductName(row.productName());
+            productDTO.setImage(row.image());
+            orderDTO.getOrderItems().add(new OrderItemDTO(row.orderItemId(), productDTO, row.quantity(),
+                    row.discount(), row.orderedProductPrice()));
+        }
+        return new ArrayList<>(orders.values());
+    }
+
+    public OrderItemDTO toOrderItemDTO(OrderItem orderItem) {
+        if (modelMapperFallback)
+            return modelMapper.map(orderItem, OrderItemDTO.class);
+
+        return new OrderItemDTO(
+                orderItem.getOrderItemId(),
+                productMapper.toDTO(orderItem.getProduct()),
+                orderItem.getQuantity(),
+                orderItem.getDiscount(),
+                orderItem.getOrderedProductPrice()
+        );
+    }
+
+    private PaymentDTO toPaymentDTO(Payment payment) {
+        if (payment == null)
+            return null;
+        return new PaymentDTO(
+                payment.getPaymentId(),
+                payment.getPaymentMethod(),
+                payment.getPgPaymentId(),
+                payment.getPgStatus(),
+                payment.getPgResponseMessage(),
+                payment.getPgName()
+        );
+    }
+}
@@ -0,0 +1,45 @@
+package com.ecommerce.project.mapper;
+
+import com.ecommerce.project.model.Product;
+import com.ecommerce.project.payload.ProductDTO;
+import org.springframework.stereotype.Component;
+
+@Component
+public class ProductMapper extends FallbackMapper {
+
+    public ProductDTO toDTO(Product product) {
+        if (modelMapperFallback) {
+            // ModelMapper would copy the raw quantity, which is 0 for a sharded product
+            ProductDTO productDTO = modelMapper.map(product, ProductDTO.class);
+            productDTO.setQuantity(product.getAvailableQuantity());
+            return productDTO;
+        }
+
+        ProductDTO productDTO = new ProductDTO();
+        productDTO.setProductId(product.getProductId());
+        productDTO.setProductName(product.getProductName());
+        productDTO.setImage(product.getImage());
+        productDTO.setDescription(product.getDescription());
+        productDTO.setQuantity(product.getAvailableQuantity());
+        productDTO.setPrice(product.getPrice());
+        productDTO.setDiscount(product.getDiscount());
+        productDTO.setSpecialPrice(product.getSpecialPrice());
+        return productDTO;
+    }
+
+    public Product toEntity(ProductDTO productDTO) {
+        if (modelMapperFallback)
+            return modelMapper.map(productDTO, Product.class);
+
+        Product product = new Product();
+        product.setProductId(productDTO.getProductId());
+        product.setProductName(productDTO.getProductName());
+        product.setImage(productDTO.getImage());
+        product.setDescription(productDTO.getDescription());
+        product.setQuantity(productDTO.getQuantity());
+        product.setPrice(productDTO.getPrice());
+        product.setDiscount(productDTO.getDiscount());
+        product.setSpecialPrice(productDTO.getSpecialPrice());
+        return product;
+    }
+}
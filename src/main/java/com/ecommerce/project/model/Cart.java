@@ -4,6 +4,9 @@ import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.UpdateTimestamp;
+
+import java.time.LocalDateTime;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -26,4 +29,17 @@ public class Cart {
     private List<CartItem> cartItems = new ArrayList<>();
 
     private Double totalPrice = 0.0;
+
+    // used by the abandoned cart reaper
+    @UpdateTimestamp
+    private LocalDateTime lastModified;
+
+    public double recalculateTotalPrice() {
+        double total = 0.0;
+        for (CartItem cartItem : cartItems) {
+            total += cartItem.getProductPrice() * cartItem.getQuantity();
+        }
+        totalPrice = total;
+        return total;
+    }
 }
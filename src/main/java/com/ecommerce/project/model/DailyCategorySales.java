@@ -0,0 +1,30 @@
+package com.ecommerce.project.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+@Entity
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "sales_daily_categories",
+        uniqueConstraints = @UniqueConstraint(columnNames = {"sales_date", "category_id"}))
+public class DailyCategorySales {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long rollupId;
+
+    @Column(name = "sales_date", nullable = false)
+    private LocalDate salesDate;
+
+    @Column(name = "category_id", nullable = false)
+    private Long categoryId;
+
+    private long units;
+    private double revenue;
+    private double discount;
+}
@@ -0,0 +1,31 @@
+package com.ecommerce.project.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+@Entity
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "sales_daily_products",
+        uniqueConstraints = @UniqueConstraint(columnNames = {"sales_date", "product_id"}))
+public class DailyProductSales {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long rollupId;
+
+    @Column(name = "sales_date", nullable = false)
+    private LocalDate salesDate;
+
+    // no foreign key: sales of a deleted product stay in the reports
+    @Column(name = "product_id", nullable = false)
+    private Long productId;
+
+    private long units;
+    private double revenue;
+    private double discount;
+}
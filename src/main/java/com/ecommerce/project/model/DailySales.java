@@ -0,0 +1,24 @@
+package com.ecommerce.project.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+// Sales rollups are only written by SalesRollupSubscriber, with upserts fed by OrderPlaced events
+@Entity
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "sales_daily")
+public class DailySales {
+    @Id
+    private LocalDate salesDate;
+
+    private long orderCount;
+    private long units;
+    private double revenue;
+    private double discount;
+}
@@ -0,0 +1,31 @@
+package com.ecommerce.project.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "idempotency_keys", indexes = @Index(name = "idx_idempotency_expires", columnList = "expiresAt"))
+public class IdempotencyRecord {
+    // the client's key, scoped to the user that sent it
+    @Id
+    @Column(length = 400)
+    private String idempotencyKey;
+
+    // SHA-256 of the request, a key reused for a different request is rejected
+    @Column(length = 64, nullable = false)
+    private String requestHash;
+
+    // serialized OrderDTO, written in the same transaction as the order
+    @Column(columnDefinition = "text")
+    private String response;
+
+    private LocalDateTime createdAt;
+    private LocalDateTime expiresAt;
+}
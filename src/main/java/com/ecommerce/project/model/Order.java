@@ -11,14 +11,20 @@ import java.util.ArrayList;
 import java.util.List;
 
 @Entity
-@Table(name = "orders")
+// order history pages walk these indexes newest first, per user and across all users
+@Table(name = "orders", indexes = {
+        @Index(name = "idx_orders_email_date", columnList = "email, orderDate, orderId"),
+        @Index(name = "idx_orders_date", columnList = "orderDate, orderId")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 public class Order {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    // pooled sequence ids let Hibernate batch the inserts of a checkout, see db/migration/sequence_ids.sql
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "orders_seq")
+    @SequenceGenerator(name = "orders_seq", sequenceName = "orders_seq", allocationSize = 50)
     private Long orderId;
 
     @Email
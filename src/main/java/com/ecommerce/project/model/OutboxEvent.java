@@ -0,0 +1,35 @@
+package com.ecommerce.project.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "outbox_events", indexes = @Index(name = "idx_outbox_unpublished", columnList = "publishedAt, eventId"))
+public class OutboxEvent {
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "outbox_events_seq")
+    @SequenceGenerator(name = "outbox_events_seq", sequenceName = "outbox_events_seq", allocationSize = 50)
+    private Long eventId;
+
+    private String aggregateType;
+    private Long aggregateId;
+    private String eventType;
+
+    @Column(columnDefinition = "text")
+    private String payload;
+
+    private LocalDateTime createdAt;
+    // null until every subscriber has handled the event
+    private LocalDateTime publishedAt;
+
+    private int attempts;
+    private LocalDateTime nextAttemptAt;
+    private String lastError;
+}
@@ -3,10 +3,14 @@ package com.ecommerce.project.model;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Size;
+import lombok.AccessLevel;
 import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import lombok.Setter;
 import lombok.ToString;
+import org.hibernate.annotations.Formula;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -31,6 +35,17 @@ public class Product {
     private String description;
     private String image;
     private Integer quantity;
+
+    // set while the stock lives in product_stock_shards (see db/migration/product_sharded_flag.sql)
+    @Column(nullable = false, columnDefinition = "boolean default false")
+    private boolean sharded;
+
+    // the stock shown and checked; only sharded products pay for the product_stock_shards subquery
+    @Setter(AccessLevel.NONE)
+    @Formula("CASE WHEN sharded THEN quantity + (SELECT COALESCE(SUM(s.quantity), 0) FROM product_stock_shards s " +
+            "WHERE s.product_id = product_id) ELSE quantity END")
+    private Integer availableQuantity;
+
     private double price;
     private double discount;
     private double specialPrice;
@@ -42,7 +57,15 @@ public class Product {
     @ManyToOne
     @JoinColumn(name = "seller_id")
     private User user;
-   // because of CascadeType.REMOVE and   orphanRemoval = true when delete product it will remove the prduct from user carts as well
-    @OneToMany(mappedBy = "product", cascade = {CascadeType.PERSIST, CascadeType.MERGE, CascadeType.REMOVE}, fetch = FetchType.EAGER, orphanRemoval = true)
+    // cart items are removed explicitly with a bulk delete when a product is deleted,
+    // catalog reads never need this collection
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    @OneToMany(mappedBy = "product", fetch = FetchType.LAZY)
     private List<CartItem> products = new ArrayList<>();
+
+    // the formula is only read on load, a product created in this session has no shards yet
+    public Integer getAvailableQuantity() {
+        return availableQuantity != null ? availableQuantity : quantity;
+    }
 }
@@ -0,0 +1,28 @@
+package com.ecommerce.project.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// One bucket of a product's stock. Products with shards keep products.quantity at 0,
+// their stock is the sum of the buckets and checkouts reserve from one bucket at a time.
+@Entity
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "product_stock_shards",
+        uniqueConstraints = @UniqueConstraint(columnNames = {"product_id", "shard_no"}))
+public class ProductStockShard {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long shardId;
+
+    @Column(name = "product_id", nullable = false)
+    private Long productId;
+
+    @Column(name = "shard_no", nullable = false)
+    private int shardNo;
+
+    private Integer quantity;
+}
@@ -0,0 +1,44 @@
+package com.ecommerce.project.outbox;
+
+import com.ecommerce.project.model.OutboxEvent;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+// Stand-in subscriber for tests and local runs: keeps the latest events in memory
+@Component
+@ConditionalOnProperty(name = "project.outbox.in-memory-sink.enabled", havingValue = "true")
+public class InMemoryOutboxSink implements OutboxSubscriber {
+
+    private final Deque<OutboxEvent> events = new ArrayDeque<>();
+    private final int capacity;
+
+    public InMemoryOutboxSink(@Value("${project.outbox.in-memory-sink.capacity:1000}") int capacity) {
+        this.capacity = capacity;
+    }
+
+    @Override
+    public boolean supports(String eventType) {
+        return true;
+    }
+
+    @Override
+    public synchronized void handle(OutboxEvent event) {
+        if (events.size() == capacity)
+            events.removeFirst();
+        events.addLast(event);
+    }
+
+    public synchronized List<OutboxEvent> events() {
+        return new ArrayList<>(events);
+    }
+
+    public synchronized void clear() {
+        events.clear();
+    }
+}
@@ -0,0 +1,13 @@
+package com.ecommerce.project.outbox;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public record OrderPlacedEvent(Long orderId, String email, LocalDate orderDate, Double totalAmount, List<Line> lines) {
+
+    public static final String TYPE = "OrderPlaced";
+
+    // categoryId is absent from events written before it was added
+    public record Line(Long productId, Long categoryId, Integer quantity, double orderedProductPrice, double discount) {
+    }
+}
@@ -0,0 +1,39 @@
+package com.ecommerce.project.outbox;
+
+import com.ecommerce.project.model.OutboxEvent;
+import com.ecommerce.project.repositories.OutboxEventRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.transaction.Transactional;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+
+@Component
+public class OutboxPublisher {
+
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    // The event is only a row in the caller's transaction: it exists if and only if the business change commits
+    @Transactional(Transactional.TxType.MANDATORY)
+    public void publish(String aggregateType, Long aggregateId, String eventType, Object payload) {
+        OutboxEvent event = new OutboxEvent();
+        event.setAggregateType(aggregateType);
+        event.setAggregateId(aggregateId);
+        event.setEventType(eventType);
+        try {
+            event.setPayload(objectMapper.writeValueAsString(payload));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize " + eventType + " event", e);
+        }
+        LocalDateTime now = LocalDateTime.now();
+        event.setCreatedAt(now);
+        event.setNextAttemptAt(now);
+        outboxEventRepository.save(event);
+    }
+}
@@ -0,0 +1,128 @@
+package com.ecommerce.project.outbox;
+
+import com.ecommerce.project.model.OutboxEvent;
+import com.ecommerce.project.repositories.OutboxEventRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+// Polls unpublished outbox rows in batches and hands them to the OutboxSubscriber beans.
+// A batch is one transaction; when it fails the same rows are retried one per transaction,
+// so a single bad event is pushed back with a growing delay instead of blocking the others.
+@Component
+public class OutboxRelay {
+
+    private static final Logger logger = LoggerFactory.getLogger(OutboxRelay.class);
+
+    private static final long MAX_BACKOFF_SECONDS = 300;
+
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+
+    @Autowired
+    private ObjectProvider<OutboxSubscriber> subscribers;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${project.outbox.relay.enabled:true}")
+    private boolean enabled;
+
+    @Value("${project.outbox.relay.batch-size:100}")
+    private int batchSize;
+
+    @Value("${project.outbox.relay.max-attempts:10}")
+    private int maxAttempts;
+
+    @Value("${project.outbox.retention-hours:72}")
+    private long retentionHours;
+
+    @Scheduled(fixedDelayString = "${project.outbox.relay.interval-ms:500}")
+    public void poll() {
+        if (!enabled)
+            return;
+        // keep going while full batches come back, a backlog drains without waiting for the next tick
+        int relayed;
+        do {
+            relayed = relayBatch();
+        } while (relayed == batchSize);
+    }
+
+    @Scheduled(fixedDelayString = "${project.outbox.purge-interval-ms:3600000}")
+    public void purgePublished() {
+        if (!enabled)
+            return;
+        LocalDateTime cutoff = LocalDateTime.now().minusHours(retentionHours);
+        Integer deleted = transactionTemplate.execute(status -> outboxEventRepository.deletePublishedBefore(cutoff));
+        if (deleted != null && deleted > 0)
+            logger.info("Purged {} published outbox events", deleted);
+    }
+
+    private int relayBatch() {
+        try {
+            Integer relayed = transactionTemplate.execute(status -> {
+                List<OutboxEvent> events = outboxEventRepository.lockNextBatch(LocalDateTime.now(), maxAttempts, batchSize);
+                events.forEach(this::deliver);
+                return events.size();
+            });
+            return relayed == null ? 0 : relayed;
+        } catch (RuntimeException e) {
+            logger.warn("Outbox batch failed, retrying its events one at a time: {}", e.getMessage());
+            return relayOneByOne();
+        }
+    }
+
+    private int relayOneByOne() {
+        int relayed = 0;
+        for (int i = 0; i < batchSize; i++) {
+            AtomicReference<Long> current = new AtomicReference<>();
+            try {
+                Integer found = transactionTemplate.execute(status -> {
+                    List<OutboxEvent> events = outboxEventRepository.lockNextBatch(LocalDateTime.now(), maxAttempts, 1);
+                    if (events.isEmpty())
+                        return 0;
+                    current.set(events.get(0).getEventId());
+                    deliver(events.get(0));
+                    return 1;
+                });
+                if (found == null || found == 0)
+                    break;
+            } catch (RuntimeException e) {
+                if (current.get() == null)
+                    throw e;
+                recordFailure(current.get(), e);
+            }
+            relayed++;
+        }
+        return relayed;
+    }
+
+    private void deliver(OutboxEvent event) {
+        subscribers.orderedStream()
+                .filter(subscriber -> subscriber.supports(event.getEventType()))
+                .forEach(subscriber -> subscriber.handle(event));
+        event.setPublishedAt(LocalDateTime.now());
+    }
+
+    private void recordFailure(Long eventId, RuntimeException e) {
+        transactionTemplate.executeWithoutResult(status -> outboxEventRepository.findById(eventId).ifPresent(event -> {
+            int attempts = event.getAttempts() + 1;
+            event.setAttempts(attempts);
+            event.setLastError(e.getClass().getSimpleName() + ": " + e.getMessage());
+            event.setNextAttemptAt(LocalDateTime.now().plusSeconds(Math.min(1L << Math.min(attempts, 20), MAX_BACKOFF_SECONDS)));
+            if (attempts >= maxAttempts)
+                logger.error("Outbox event {} ({}) failed {} times and will not be retried", eventId, event.getEventType(), attempts, e);
+            else
+                logger.warn("Outbox event {} ({}) failed, attempt {}: {}", eventId, event.getEventType(), attempts, e.getMessage());
+        }));
+    }
+}
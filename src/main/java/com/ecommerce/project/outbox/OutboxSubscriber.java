@@ -0,0 +1,11 @@
+package com.ecommerce.project.outbox;
+
+import com.ecommerce.project.model.OutboxEvent;
+
+// In-process consumer of outbox events. handle runs in the relay transaction, so database
+// writes made by a subscriber commit together with the event being marked as published.
+public interface OutboxSubscriber {
+    boolean supports(String eventType);
+
+    void handle(OutboxEvent event);
+}
@@ -0,0 +1,106 @@
+package com.ecommerce.project.outbox;
+
+import com.ecommerce.project.model.OutboxEvent;
+import com.ecommerce.project.repositories.ProductRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+// Keeps the per-day sales rollups up to date from OrderPlaced events. The upserts run in the
+// relay transaction that marks the event published, so every order is counted exactly once
+// and checkout itself never touches the rollup rows.
+@Component
+public class SalesRollupSubscriber implements OutboxSubscriber {
+
+    private static final String UPSERT_DAILY = "INSERT INTO sales_daily (sales_date, order_count, units, revenue, discount) " +
+            "VALUES (?, 1, ?, ?, ?) ON CONFLICT (sales_date) DO UPDATE SET " +
+            "order_count = sales_daily.order_count + 1, units = sales_daily.units + EXCLUDED.units, " +
+            "revenue = sales_daily.revenue + EXCLUDED.revenue, discount = sales_daily.discount + EXCLUDED.discount";
+    private static final String UPSERT_PRODUCT = "INSERT INTO sales_daily_products (sales_date, product_id, units, revenue, discount) " +
+            "VALUES (?, ?, ?, ?, ?) ON CONFLICT (sales_date, product_id) DO UPDATE SET " +
+            "units = sales_daily_products.units + EXCLUDED.units, revenue = sales_daily_products.revenue + EXCLUDED.revenue, " +
+            "discount = sales_daily_products.discount + EXCLUDED.discount";
+    private static final String UPSERT_CATEGORY = "INSERT INTO sales_daily_categories (sales_date, category_id, units, revenue, discount) " +
+            "VALUES (?, ?, ?, ?, ?) ON CONFLICT (sales_date, category_id) DO UPDATE SET " +
+            "units = sales_daily_categories.units + EXCLUDED.units, revenue = sales_daily_categories.revenue + EXCLUDED.revenue, " +
+            "discount = sales_daily_categories.discount + EXCLUDED.discount";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Override
+    public boolean supports(String eventType) {
+        return OrderPlacedEvent.TYPE.equals(eventType);
+    }
+
+    @Override
+    public void handle(OutboxEvent event) {
+        OrderPlacedEvent order;
+        try {
+            order = objectMapper.readValue(event.getPayload(), OrderPlacedEvent.class);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not read OrderPlaced event " + event.getEventId(), e);
+        }
+        LocalDate salesDate = order.orderDate() != null ? order.orderDate() : event.getCreatedAt().toLocalDate();
+
+        // lines are summed per product and per category first, one row each per order
+        Totals day = new Totals();
+        Map<Long, Totals> products = new TreeMap<>();
+        Map<Long, Totals> categories = new TreeMap<>();
+        for (OrderPlacedEvent.Line line : order.lines()) {
+            double revenue = line.orderedProductPrice() * line.quantity();
+            // orderedProductPrice is already discounted by discount percent
+            double discount = line.discount() > 0 && line.discount() < 100
+                    ? revenue * line.discount() / (100 - line.discount())
+                    : 0.0;
+            day.add(line.quantity(), revenue, discount);
+            products.computeIfAbsent(line.productId(), id -> new Totals()).add(line.quantity(), revenue, discount);
+            Long categoryId = line.categoryId() != null ? line.categoryId() : currentCategoryId(line.productId());
+            if (categoryId != null)
+                categories.computeIfAbsent(categoryId, id -> new Totals()).add(line.quantity(), revenue, discount);
+        }
+
+        jdbcTemplate.update(UPSERT_DAILY, salesDate, day.units, day.revenue, day.discount);
+        jdbcTemplate.batchUpdate(UPSERT_PRODUCT, rows(salesDate, products));
+        jdbcTemplate.batchUpdate(UPSERT_CATEGORY, rows(salesDate, categories));
+    }
+
+    // events written before lines carried their category
+    private Long currentCategoryId(Long productId) {
+        return productRepository.findById(productId)
+                .map(product -> product.getCategory().getCategoryId())
+                .orElse(null);
+    }
+
+    private List<Object[]> rows(LocalDate salesDate, Map<Long, Totals> totalsById) {
+        List<Object[]> rows = new ArrayList<>(totalsById.size());
+        totalsById.forEach((id, totals) -> rows.add(new Object[]{salesDate, id, totals.units, totals.revenue, totals.discount}));
+        return rows;
+    }
+
+    private static class Totals {
+        private long units;
+        private double revenue;
+        private double discount;
+
+        void add(int units, double revenue, double discount) {
+            this.units += units;
+            this.revenue += revenue;
+            this.discount += discount;
+        }
+    }
+}
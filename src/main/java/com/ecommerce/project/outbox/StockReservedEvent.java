@@ -0,0 +1,8 @@
+package com.ecommerce.project.outbox;
+
+import java.util.Map;
+
+public record StockReservedEvent(Long orderId, Map<Long, Integer> quantitiesByProductId) {
+
+    public static final String TYPE = "StockReserved";
+}
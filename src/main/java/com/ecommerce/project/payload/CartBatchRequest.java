@@ -0,0 +1,19 @@
+package com.ecommerce.project.payload;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CartBatchRequest {
+    @NotEmpty
+    @Valid
+    private List<CartOperationDTO> operations = new ArrayList<>();
+}
@@ -0,0 +1,9 @@
+package com.ecommerce.project.payload;
+
+public enum CartOperation {
+    // adds the quantity to the line, creating it when missing
+    ADD,
+    // replaces the quantity of the line, 0 removes it
+    SET,
+    REMOVE
+}
@@ -0,0 +1,21 @@
+package com.ecommerce.project.payload;
+
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CartOperationDTO {
+    @NotNull
+    private Long productId;
+
+    @NotNull
+    private CartOperation operation;
+
+    @Min(value = 0, message = "Quantity cannot be negative")
+    private Integer quantity;
+}
@@ -0,0 +1,20 @@
+package com.ecommerce.project.payload;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CartReaperStatsDTO {
+    private LocalDateTime lastRunAt;
+    private Long lastRunCarts;
+    private Long lastRunCartItems;
+    private Long lastRunMillis;
+    private Long totalRuns;
+    private Long totalCarts;
+    private Long totalCartItems;
+}
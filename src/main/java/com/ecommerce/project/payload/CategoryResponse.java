@@ -17,5 +17,6 @@ public class CategoryResponse {
     private Long totalElements;
     private Integer totalPages;
     private Boolean lastPage;
+    private String nextCursor;
 
 }
@@ -0,0 +1,18 @@
+package com.ecommerce.project.payload;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CheckoutStatsDTO {
+    private Integer queueDepth;
+    private Integer inFlight;
+    private Long completed;
+    private Long failed;
+    private Long retried;
+    private Double averageLatencyMillis;
+    private Double maxLatencyMillis;
+}
@@ -0,0 +1,19 @@
+package com.ecommerce.project.payload;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductImportResponse {
+    private Long totalRows = 0L;
+    private Long imported = 0L;
+    private Long failed = 0L;
+    private List<ProductImportError> errors = new ArrayList<>();
+    private Boolean errorsTruncated = false;
+}
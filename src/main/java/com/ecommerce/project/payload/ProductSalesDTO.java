@@ -0,0 +1,16 @@
+package com.ecommerce.project.payload;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductSalesDTO {
+    private Long productId;
+    private String productName;
+    private long units;
+    private double revenue;
+    private double discount;
+}
@@ -5,6 +5,9 @@ import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+
 public interface CartItemRepository extends JpaRepository<CartItem, Long> {
     @Query("SELECT ci FROM CartItem ci WHERE ci.cart.id = ?1 AND ci.product.id = ?2")
     CartItem findByCartItemByProductIdAndCartId(Long cartId, Long productId);
@@ -12,4 +15,30 @@ public interface CartItemRepository extends JpaRepository<CartItem, Long> {
     @Modifying
     @Query("DELETE FROM CartItem ci where ci.cart.id = ?1 AND ci.product.id = ?2")
     void deleteCartItemByProductIdAndCartId(Long cartId, Long productId);
+
+    @Modifying
+    @Query("UPDATE CartItem ci SET ci.productPrice = ?2 WHERE ci.product.id = ?1")
+    int updateProductPrice(Long productId, double productPrice);
+
+    @Modifying
+    @Query("DELETE FROM CartItem ci WHERE ci.product.id = ?1")
+    int deleteCartItemsByProductId(Long productId);
+
+    @Modifying
+    @Query("DELETE FROM CartItem ci WHERE ci.product.id IN ?1")
+    int deleteCartItemsByProductIdIn(Collection<Long> productIds);
+
+    @Modifying
+    @Query("DELETE FROM CartItem ci WHERE ci.cart.id IN ?1")
+    int deleteCartItemsByCartIdIn(Collection<Long> cartIds);
+
+    @Modifying
+    @Query("DELETE FROM CartItem ci WHERE ci.cart.id = ?1 AND ci.product.id IN ?2")
+    int deleteCartItemsByCartIdAndProductIdIn(Long cartId, Collection<Long> productIds);
+
+    // the idle check is repeated so a cart changed since it was selected keeps its items
+    @Modifying
+    @Query("DELETE FROM CartItem ci WHERE ci.cart.id IN " +
+            "(SELECT c.cartId FROM Cart c WHERE c.cartId IN ?1 AND c.lastModified < ?2)")
+    int deleteIdleCartItems(Collection<Long> cartIds, LocalDateTime cutoff);
 }
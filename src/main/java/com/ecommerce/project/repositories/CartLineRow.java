@@ -0,0 +1,6 @@
+package com.ecommerce.project.repositories;
+
+// One row per cart line, carts without lines come back as a single row with null product columns
+public record CartLineRow(Long cartId, Double totalPrice, Long productId, String productName, String image,
+                          String description, Integer quantity, Double price, Double discount, Double specialPrice) {
+}
@@ -1,19 +1,75 @@
 package com.ecommerce.project.repositories;
 
 import com.ecommerce.project.model.Cart;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 public interface CartRepository extends JpaRepository<Cart, Long> {
 
+    String CART_LINES = "SELECT new com.ecommerce.project.repositories.CartLineRow(c.cartId, c.totalPrice, " +
+            "p.productId, p.productName, p.image, p.description, ci.quantity, p.price, p.discount, p.specialPrice) " +
+            "FROM Cart c LEFT JOIN c.cartItems ci LEFT JOIN ci.product p ";
+
     @Query("Select c from Cart c where c.user.email = ?1")
     Cart findCartByEmail(String email);
 
     @Query("Select c from Cart c where c.user.email = ?1 and c.id=?2")
     Cart findCartByEmailAndCartId(String emailId, Long cartId);
 
+    @Query(CART_LINES + "WHERE c.user.email = ?1 AND c.cartId = ?2 ORDER BY ci.cartItemId")
+    List<CartLineRow> findCartLines(String email, Long cartId);
+
+    @Query(CART_LINES + "WHERE c.user.email = ?1 ORDER BY ci.cartItemId")
+    List<CartLineRow> findCartLinesByEmail(String email);
+
+    @Query(CART_LINES + "WHERE c.cartId IN ?1 ORDER BY c.cartId, ci.cartItemId")
+    List<CartLineRow> findCartLinesByCartIdIn(Collection<Long> cartIds);
+
+    @Query("SELECT c.cartId FROM Cart c WHERE c.cartId > ?1 ORDER BY c.cartId")
+    List<Long> findCartIdsAfter(Long cartId, Limit limit);
+
+    @Query("SELECT c.cartId FROM Cart c WHERE c.lastModified < ?1 AND c.cartId > ?2 ORDER BY c.cartId")
+    List<Long> findIdleCartIds(LocalDateTime cutoff, Long after, Limit limit);
+
+    @Modifying
+    @Query("DELETE FROM Cart c WHERE c.cartId IN ?1 AND c.lastModified < ?2")
+    int deleteIdleCartsByIdIn(Collection<Long> cartIds, LocalDateTime cutoff);
+
+    @Modifying
+    @Query("UPDATE Cart c SET c.totalPrice = " +
+            "COALESCE((SELECT SUM(ci.productPrice * ci.quantity) FROM CartItem ci WHERE ci.cart = c), 0.0) " +
+            "WHERE c.cartId = ?1")
+    int recalculateTotalPrice(Long cartId);
+
+    @Modifying
+    @Query("UPDATE Cart c SET c.lastModified = ?1 WHERE c.lastModified IS NULL")
+    int backfillLastModified(LocalDateTime now);
+
     @Query("Select c from Cart c JOIN FETCH c.cartItems ci JOIN FETCH ci.product p where p.id = ?1")
     List<Cart> findCartsByProductId(Long productId);
+
+    // must run before the cart_items prices are changed, the delta is taken from the old line price
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE Cart c SET c.totalPrice = c.totalPrice + " +
+            "(SELECT SUM((?2 - ci.productPrice) * ci.quantity) FROM CartItem ci WHERE ci.cart = c AND ci.product.id = ?1) " +
+            "WHERE c.id IN (SELECT ci2.cart.id FROM CartItem ci2 WHERE ci2.product.id = ?1)")
+    int repriceCartTotals(Long productId, double productPrice);
+
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE Cart c SET c.totalPrice = c.totalPrice - " +
+            "(SELECT SUM(ci.productPrice * ci.quantity) FROM CartItem ci WHERE ci.cart = c AND ci.product.id = ?1) " +
+            "WHERE c.id IN (SELECT ci2.cart.id FROM CartItem ci2 WHERE ci2.product.id = ?1)")
+    int subtractProductFromCartTotals(Long productId);
+
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE Cart c SET c.totalPrice = c.totalPrice - " +
+            "(SELECT SUM(ci.productPrice * ci.quantity) FROM CartItem ci WHERE ci.cart = c AND ci.product.id IN ?1) " +
+            "WHERE c.id IN (SELECT ci2.cart.id FROM CartItem ci2 WHERE ci2.product.id IN ?1)")
+    int subtractProductsFromCartTotals(Collection<Long> productIds);
 }
@@ -0,0 +1,20 @@
+package com.ecommerce.project.repositories;
+
+import com.ecommerce.project.model.DailyCategorySales;
+import com.ecommerce.project.payload.CategorySalesDTO;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface DailyCategorySalesRepository extends JpaRepository<DailyCategorySales, Long> {
+
+    @Query("SELECT new com.ecommerce.project.payload.CategorySalesDTO(r.categoryId, c.categoryName, " +
+            "SUM(r.units), SUM(r.revenue), SUM(r.discount)) FROM DailyCategorySales r " +
+            "LEFT JOIN Category c ON c.categoryId = r.categoryId WHERE r.salesDate BETWEEN ?1 AND ?2 " +
+            "GROUP BY r.categoryId, c.categoryName ORDER BY SUM(r.revenue) DESC, r.categoryId")
+    List<CategorySalesDTO> findCategorySales(LocalDate from, LocalDate to);
+}
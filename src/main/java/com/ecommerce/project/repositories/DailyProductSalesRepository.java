@@ -0,0 +1,22 @@
+package com.ecommerce.project.repositories;
+
+import com.ecommerce.project.model.DailyProductSales;
+import com.ecommerce.project.payload.ProductSalesDTO;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface DailyProductSalesRepository extends JpaRepository<DailyProductSales, Long> {
+
+    // the name is null for products deleted since they were sold
+    @Query("SELECT new com.ecommerce.project.payload.ProductSalesDTO(r.productId, p.productName, " +
+            "SUM(r.units), SUM(r.revenue), SUM(r.discount)) FROM DailyProductSales r " +
+            "LEFT JOIN Product p ON p.productId = r.productId WHERE r.salesDate BETWEEN ?1 AND ?2 " +
+            "GROUP BY r.productId, p.productName ORDER BY SUM(r.revenue) DESC, r.productId")
+    List<ProductSalesDTO> findTopProductSales(LocalDate from, LocalDate to, Limit limit);
+}
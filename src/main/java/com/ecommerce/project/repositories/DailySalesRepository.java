@@ -0,0 +1,18 @@
+package com.ecommerce.project.repositories;
+
+import com.ecommerce.project.model.DailySales;
+import com.ecommerce.project.payload.DailySalesDTO;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface DailySalesRepository extends JpaRepository<DailySales, LocalDate> {
+
+    @Query("SELECT new com.ecommerce.project.payload.DailySalesDTO(d.salesDate, d.orderCount, d.units, d.revenue, d.discount) " +
+            "FROM DailySales d WHERE d.salesDate BETWEEN ?1 AND ?2 ORDER BY d.salesDate")
+    List<DailySalesDTO> findDailySales(LocalDate from, LocalDate to);
+}
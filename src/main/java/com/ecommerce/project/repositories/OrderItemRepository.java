@@ -2,11 +2,19 @@ package com.ecommerce.project.repositories;
 
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import com.ecommerce.project.model.OrderItem;
 
+import java.util.Collection;
+import java.util.List;
+
 @Repository
 public interface OrderItemRepository extends JpaRepository<OrderItem, Long> {
 
-}
\ No newline at end of file
+    @Query("SELECT new com.ecommerce.project.repositories.OrderItemRow(oi.order.orderId, oi.orderItemId, " +
+            "p.productId, p.productName, p.image, oi.quantity, oi.discount, oi.orderedProductPrice) " +
+            "FROM OrderItem oi JOIN oi.product p WHERE oi.order.orderId IN ?1 ORDER BY oi.orderItemId")
+    List<OrderItemRow> findOrderItemRowsByOrderIdIn(Collection<Long> orderIds);
+}
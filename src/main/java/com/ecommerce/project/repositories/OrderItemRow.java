@@ -0,0 +1,5 @@
+package com.ecommerce.project.repositories;
+
+public record OrderItemRow(Long orderId, Long orderItemId, Long productId, String productName, String image,
+                           Integer quantity, double discount, double orderedProductPrice) {
+}
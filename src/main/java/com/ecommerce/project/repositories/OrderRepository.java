@@ -1,9 +1,41 @@
 package com.ecommerce.project.repositories;
 
 import com.ecommerce.project.model.Order;
+import org.springframework.data.domain.Limit;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
 @Repository
 public interface OrderRepository extends JpaRepository<Order, Long> {
+
+    String ORDER_ROWS = "SELECT new com.ecommerce.project.repositories.OrderRow(o.orderId, o.email, o.orderDate, " +
+            "o.totalAmount, o.orderStatus, a.addressId, p.paymentId, p.paymentMethod, p.pgPaymentId, p.pgStatus, " +
+            "p.pgResponseMessage, p.pgName) FROM Order o LEFT JOIN o.payment p LEFT JOIN o.address a ";
+
+    // checkout workers claim an order by locking it, a second worker waits and then sees it is done
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT o FROM Order o WHERE o.orderId = ?1")
+    Optional<Order> findByIdForUpdate(Long orderId);
+
+    @Query("SELECT o.orderId FROM Order o WHERE o.orderStatus = ?1 ORDER BY o.orderId")
+    List<Long> findOrderIdsByOrderStatus(String orderStatus);
+
+    // newest first, each page continues strictly after the (orderDate, orderId) of the previous one
+    @Query(ORDER_ROWS + "WHERE o.email = ?1 AND (o.orderDate < ?2 OR (o.orderDate = ?2 AND o.orderId < ?3)) " +
+            "ORDER BY o.orderDate DESC, o.orderId DESC")
+    List<OrderRow> findOrderRowsByEmail(String email, LocalDate beforeDate, Long beforeId, Limit limit);
+
+    @Query(ORDER_ROWS + "WHERE (?1 IS NULL OR o.email = ?1) AND (?2 IS NULL OR o.orderStatus = ?2) " +
+            "AND o.orderDate >= ?3 AND o.orderDate <= ?4 " +
+            "AND (o.orderDate < ?5 OR (o.orderDate = ?5 AND o.orderId < ?6)) " +
+            "ORDER BY o.orderDate DESC, o.orderId DESC")
+    List<OrderRow> searchOrderRows(String email, String orderStatus, LocalDate fromDate, LocalDate toDate,
+                                   LocalDate beforeDate, Long beforeId, Limit limit);
 }
@@ -0,0 +1,9 @@
+package com.ecommerce.project.repositories;
+
+import java.time.LocalDate;
+
+// Order with its payment and address id flattened into one row
+public record OrderRow(Long orderId, String email, LocalDate orderDate, Double totalAmount, String orderStatus,
+                       Long addressId, Long paymentId, String paymentMethod, String pgPaymentId, String pgStatus,
+                       String pgResponseMessage, String pgName) {
+}
@@ -0,0 +1,23 @@
+package com.ecommerce.project.repositories;
+
+import com.ecommerce.project.model.OutboxEvent;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+
+    // rows locked by another relay instance are skipped instead of waited on
+    @Query(value = "SELECT * FROM outbox_events WHERE published_at IS NULL AND attempts < ?2 " +
+            "AND next_attempt_at <= ?1 ORDER BY event_id LIMIT ?3 FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<OutboxEvent> lockNextBatch(LocalDateTime now, int maxAttempts, int batchSize);
+
+    @Modifying
+    @Query("DELETE FROM OutboxEvent e WHERE e.publishedAt < ?1")
+    int deletePublishedBefore(LocalDateTime cutoff);
+}
@@ -0,0 +1,17 @@
+package com.ecommerce.project.repositories;
+
+import com.ecommerce.project.payload.ProductDTO;
+
+import java.util.List;
+import java.util.Set;
+
+public interface ProductCursorRepository {
+
+    // the sort property is written into the query, so only these can get there
+    Set<String> SORT_PROPERTIES = Set.of("productId", "productName", "price", "discount", "specialPrice");
+
+    // Keyset page of products ordered by sortBy and then productId, starting after the row
+    // (afterKey, afterId); a null afterId starts from the first row, a null categoryId spans the catalog
+    List<ProductDTO> findProductDTOsAfter(Long categoryId, String sortBy, boolean ascending,
+                                          Object afterKey, Long afterId, int limit);
+}
@@ -0,0 +1,50 @@
+package com.ecommerce.project.repositories;
+
+import com.ecommerce.project.payload.ProductDTO;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// The sort column decides the seek predicate, so the query is assembled here instead of in an
+// annotation. Rows come back as DTOs: no entity is loaded, dirty-checked or kept in the session.
+public class ProductCursorRepositoryImpl implements ProductCursorRepository {
+
+    private static final String SELECT_DTO = "SELECT new com.ecommerce.project.payload.ProductDTO(p.productId, " +
+            "p.productName, p.image, p.description, p.availableQuantity, p.price, p.discount, p.specialPrice) " +
+            "FROM Product p";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<ProductDTO> findProductDTOsAfter(Long categoryId, String sortBy, boolean ascending,
+                                                 Object afterKey, Long afterId, int limit) {
+        if (!SORT_PROPERTIES.contains(sortBy))
+            throw new IllegalArgumentException("Unsupported sort property: " + sortBy);
+
+        List<String> conditions = new ArrayList<>();
+        if (categoryId != null)
+            conditions.add("p.category.categoryId = :categoryId");
+        if (afterId != null) {
+            String seek = ascending ? ">" : "<";
+            conditions.add("(p." + sortBy + " " + seek + " :afterKey OR (p." + sortBy + " = :afterKey AND p.productId " + seek + " :afterId))");
+        }
+        String direction = ascending ? " ASC" : " DESC";
+        String jpql = SELECT_DTO
+                + (conditions.isEmpty() ? "" : " WHERE " + String.join(" AND ", conditions))
+                + " ORDER BY p." + sortBy + direction + ", p.productId" + direction;
+
+        TypedQuery<ProductDTO> query = entityManager.createQuery(jpql, ProductDTO.class)
+                .setMaxResults(limit);
+        if (categoryId != null)
+            query.setParameter("categoryId", categoryId);
+        if (afterId != null) {
+            query.setParameter("afterKey", afterKey);
+            query.setParameter("afterId", afterId);
+        }
+        return query.getResultList();
+    }
+}
@@ -1,17 +1,60 @@
 package com.ecommerce.project.repositories;
 
-import com.ecommerce.project.model.Category;
 import com.ecommerce.project.model.Product;
+import com.ecommerce.project.payload.ProductDTO;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
 @Repository
-public interface ProductRepository extends JpaRepository<Product, Long> {
-    Page<Product> findByCategoryOrderByPriceAsc(Category category, Pageable pageDetails);
+public interface ProductRepository extends JpaRepository<Product, Long>, ProductCursorRepository {
+    @Query(value = "SELECT new com.ecommerce.project.payload.ProductDTO(p.productId, p.productName, p.image, p.description, " +
+            "p.availableQuantity, p.price, p.discount, p.specialPrice) FROM Product p",
+            countQuery = "SELECT count(p) FROM Product p")
+    Page<ProductDTO> findAllProductDTOs(Pageable pageDetails);
+
+    @Query(value = "SELECT new com.ecommerce.project.payload.ProductDTO(p.productId, p.productName, p.image, p.description, " +
+            "p.availableQuantity, p.price, p.discount, p.specialPrice) FROM Product p WHERE p.category.categoryId = ?1 ORDER BY p.price ASC",
+            countQuery = "SELECT count(p) FROM Product p WHERE p.category.categoryId = ?1")
+    Page<ProductDTO> findProductDTOsByCategoryId(Long categoryId, Pageable pageDetails);
 
-    Page<Product> findByProductNameLikeIgnoreCase(String keyword, Pageable pageDetails);
+    @Query("SELECT new com.ecommerce.project.payload.ProductDTO(p.productId, p.productName, p.image, p.description, " +
+            "p.availableQuantity, p.price, p.discount, p.specialPrice) FROM Product p WHERE p.productId IN ?1")
+    List<ProductDTO> findProductDTOsByIdIn(Collection<Long> productIds);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT p FROM Product p WHERE p.productId = ?1")
+    Optional<Product> findByIdForUpdate(Long productId);
 
     Product findByProductName(String productName);
+
+    boolean existsByProductNameAndCategoryCategoryId(String productName, Long categoryId);
+
+    @Query("SELECT p.productId FROM Product p WHERE p.category.categoryId = ?1")
+    List<Long> findProductIdsByCategoryId(Long categoryId);
+
+    @Query("SELECT p.productName FROM Product p WHERE p.category.categoryId = ?1")
+    List<String> findProductNamesByCategoryId(Long categoryId);
+
+    List<ProductSearchView> findAllProjectedBy();
+
+    // must be consumed inside a transaction, postgres only honours the fetch size with autocommit off
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT p FROM Product p JOIN FETCH p.category ORDER BY p.productId")
+    Stream<Product> streamAllForExport();
 }
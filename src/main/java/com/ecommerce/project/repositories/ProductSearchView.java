@@ -0,0 +1,7 @@
+package com.ecommerce.project.repositories;
+
+public interface ProductSearchView {
+    Long getProductId();
+    String getProductName();
+    String getDescription();
+}
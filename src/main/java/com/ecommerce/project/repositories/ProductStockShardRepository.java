@@ -0,0 +1,29 @@
+package com.ecommerce.project.repositories;
+
+import com.ecommerce.project.model.ProductStockShard;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface ProductStockShardRepository extends JpaRepository<ProductStockShard, Long> {
+
+    // locked in shard order, like the fallback path of InventoryReservation
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM ProductStockShard s WHERE s.productId = ?1 ORDER BY s.shardNo")
+    List<ProductStockShard> findByProductIdForUpdate(Long productId);
+
+    @Modifying
+    @Query("DELETE FROM ProductStockShard s WHERE s.productId = ?1")
+    int deleteByProductId(Long productId);
+
+    @Modifying
+    @Query("DELETE FROM ProductStockShard s WHERE s.productId IN ?1")
+    int deleteByProductIdIn(Collection<Long> productIds);
+}
@@ -0,0 +1,240 @@
+package com.ecommerce.project.search;
+
+import com.ecommerce.project.cache.CatalogChangedEvent;
+import com.ecommerce.project.repositories.ProductRepository;
+import com.ecommerce.project.repositories.ProductSearchView;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.text.Normalizer;
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+// In-memory index of product names and descriptions. Local writes are applied after their
+// transaction commits; products written by another instance are picked up by a rebuild once
+// CatalogVersion sees that instance's version.
+@Component
+public class ProductSearchIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductSearchIndex.class);
+
+    private static final int GRAM_SIZE = 3;
+    private static final Pattern TOKEN_SEPARATOR = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+
+    // gram (or short prefix) -> ids of the products having a name/description token containing it
+    private final Map<String, Set<Long>> postings = new HashMap<>();
+    private final Map<Long, IndexedProduct> documents = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    private record IndexedProduct(List<String> nameTokens, List<String> descriptionTokens) {
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        List<ProductSearchView> products = productRepository.findAllProjectedBy();
+        lock.writeLock().lock();
+        try {
+            postings.clear();
+            documents.clear();
+            products.forEach(p -> add(p.getProductId(), p.getProductName(), p.getDescription()));
+        } finally {
+            lock.writeLock().unlock();
+        }
+        logger.info("Product search index built with {} products", products.size());
+    }
+
+    // a rebuild reads the products table as the version is seen, with everything committed so far
+    @EventListener(condition = "!#event.stockOnly()")
+    public void onCatalogChanged(CatalogChangedEvent event) {
+        rebuild();
+    }
+
+    // inside a transaction the change waits for the commit, a rollback leaves the index as it was
+    public void index(Long productId, String productName, String description) {
+        afterCommit(() -> indexNow(productId, productName, description));
+    }
+
+    public void remove(Long productId) {
+        afterCommit(() -> removeNow(productId));
+    }
+
+    private void afterCommit(Runnable change) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    change.run();
+                }
+            });
+        } else {
+            change.run();
+        }
+    }
+
+    private void indexNow(Long productId, String productName, String description) {
+        lock.writeLock().lock();
+        try {
+            delete(productId);
+            add(productId, productName, description);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void removeNow(Long productId) {
+        lock.writeLock().lock();
+        try {
+            delete(productId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public SearchResult search(String keyword, int pageNumber, int pageSize) {
+        List<String> queryTokens = tokenize(keyword);
+        if (queryTokens.isEmpty())
+            return new SearchResult(List.of(), 0);
+
+        List<Map.Entry<Long, Integer>> ranked;
+        lock.readLock().lock();
+        try {
+            Set<Long> candidates = null;
+            for (String token : queryTokens) {
+                Set<Long> matches = candidatesFor(token);
+                if (candidates == null) {
+                    candidates = new HashSet<>(matches);
+                } else {
+                    candidates.retainAll(matches);
+                }
+                if (candidates.isEmpty())
+                    return new SearchResult(List.of(), 0);
+            }
+
+            ranked = new ArrayList<>();
+            for (Long productId : candidates) {
+                int score = score(documents.get(productId), queryTokens);
+                if (score > 0)
+                    ranked.add(Map.entry(productId, score));
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        ranked.sort(Map.Entry.<Long, Integer>comparingByValue().reversed()
+                .thenComparing(Map.Entry.comparingByKey()));
+
+        int from = Math.min(pageNumber * pageSize, ranked.size());
+        int to = Math.min(from + pageSize, ranked.size());
+        List<Long> productIds = ranked.subList(from, to).stream()
+                .map(Map.Entry::getKey)
+                .toList();
+        return new SearchResult(productIds, ranked.size());
+    }
+
+    private void add(Long productId, String productName, String description) {
+        IndexedProduct document = new IndexedProduct(tokenize(productName), tokenize(description));
+        documents.put(productId, document);
+        for (String key : keysOf(document)) {
+            postings.computeIfAbsent(key, k -> new HashSet<>()).add(productId);
+        }
+    }
+
+    private void delete(Long productId) {
+        IndexedProduct document = documents.remove(productId);
+        if (document == null)
+            return;
+        for (String key : keysOf(document)) {
+            Set<Long> ids = postings.get(key);
+            if (ids != null) {
+                ids.remove(productId);
+                if (ids.isEmpty())
+                    postings.remove(key);
+            }
+        }
+    }
+
+    private Set<String> keysOf(IndexedProduct document) {
+        Set<String> keys = new HashSet<>();
+        document.nameTokens().forEach(token -> keys.addAll(gramsOf(token, true)));
+        document.descriptionTokens().forEach(token -> keys.addAll(gramsOf(token, true)));
+        return keys;
+    }
+
+    // Postings only narrow the candidates down, every candidate is verified in score()
+    private Set<Long> candidatesFor(String queryToken) {
+        Set<Long> smallest = null;
+        for (String key : gramsOf(queryToken, false)) {
+            Set<Long> ids = postings.getOrDefault(key, Set.of());
+            if (smallest == null || ids.size() < smallest.size())
+                smallest = ids;
+        }
+        return smallest == null ? Set.of() : smallest;
+    }
+
+    // Tokens are indexed by their 1 and 2 char prefixes and by every trigram; a query token
+    // shorter than a trigram is looked up as a prefix, a longer one by its trigrams
+    private List<String> gramsOf(String token, boolean indexing) {
+        List<String> grams = new ArrayList<>();
+        if (indexing || token.length() < GRAM_SIZE) {
+            for (int i = 1; i < GRAM_SIZE && i <= token.length(); i++) {
+                if (indexing || i == token.length())
+                    grams.add("p:" + token.substring(0, i));
+            }
+        }
+        for (int i = 0; i + GRAM_SIZE <= token.length(); i++) {
+            grams.add("g:" + token.substring(i, i + GRAM_SIZE));
+        }
+        return grams;
+    }
+
+    // Every query token has to match; name hits outrank description hits and
+    // whole-word hits outrank prefix hits, which outrank infix hits
+    private int score(IndexedProduct document, List<String> queryTokens) {
+        int total = 0;
+        for (String queryToken : queryTokens) {
+            int best = Math.max(
+                    bestMatch(document.nameTokens(), queryToken, 10, 6, 4),
+                    bestMatch(document.descriptionTokens(), queryToken, 3, 2, 1));
+            if (best == 0)
+                return 0;
+            total += best;
+        }
+        return total;
+    }
+
+    private int bestMatch(List<String> tokens, String queryToken, int exact, int prefix, int infix) {
+        int best = 0;
+        for (String token : tokens) {
+            if (token.equals(queryToken))
+                return exact;
+            if (token.startsWith(queryToken))
+                best = Math.max(best, prefix);
+            else if (token.contains(queryToken))
+                best = Math.max(best, infix);
+        }
+        return best;
+    }
+
+    private static List<String> tokenize(String text) {
+        if (text == null || text.isBlank())
+            return List.of();
+        String folded = DIACRITICS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD))
+                .replaceAll("")
+                .toLowerCase(Locale.ROOT);
+        return Arrays.stream(TOKEN_SEPARATOR.split(folded))
+                .filter(token -> !token.isEmpty())
+                .toList();
+    }
+}
@@ -0,0 +1,6 @@
+package com.ecommerce.project.search;
+
+import java.util.List;
+
+public record SearchResult(List<Long> productIds, long totalHits) {
+}
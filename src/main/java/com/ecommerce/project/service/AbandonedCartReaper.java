@@ -0,0 +1,112 @@
+package com.ecommerce.project.service;
+
+import com.ecommerce.project.cache.WriteBehindCartStore;
+import com.ecommerce.project.payload.CartReaperStatsDTO;
+import com.ecommerce.project.repositories.CartItemRepository;
+import com.ecommerce.project.repositories.CartRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+// Deletes carts that have not changed for project.cart.reaper.ttl-days, one short transaction per chunk
+@Component
+public class AbandonedCartReaper {
+
+    private static final Logger logger = LoggerFactory.getLogger(AbandonedCartReaper.class);
+
+    @Autowired
+    private CartRepository cartRepository;
+
+    @Autowired
+    private CartItemRepository cartItemRepository;
+
+    @Autowired
+    private WriteBehindCartStore cartStore;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${project.cart.reaper.enabled:true}")
+    private boolean enabled;
+
+    @Value("${project.cart.reaper.ttl-days:30}")
+    private long ttlDays;
+
+    @Value("${project.cart.reaper.batch-size:500}")
+    private int batchSize;
+
+    private final AtomicReference<CartReaperStatsDTO> lastRun = new AtomicReference<>(new CartReaperStatsDTO());
+    private final AtomicLong totalRuns = new AtomicLong();
+    private final AtomicLong totalCarts = new AtomicLong();
+    private final AtomicLong totalCartItems = new AtomicLong();
+
+    @Scheduled(fixedDelayString = "${project.cart.reaper.interval-ms:3600000}",
+            initialDelayString = "${project.cart.reaper.initial-delay-ms:60000}")
+    public void reap() {
+        if (!enabled)
+            return;
+
+        long start = System.nanoTime();
+        LocalDateTime now = LocalDateTime.now();
+        // carts created before the column existed start their TTL now
+        int backfilled = transactionTemplate.execute(status -> cartRepository.backfillLastModified(now));
+        if (backfilled > 0)
+            logger.info("Backfilled lastModified on {} carts", backfilled);
+
+        LocalDateTime cutoff = now.minusDays(ttlDays);
+        long carts = 0;
+        long cartItems = 0;
+        Long after = 0L;
+        while (true) {
+            List<Long> cartIds = cartRepository.findIdleCartIds(cutoff, after, Limit.of(batchSize));
+            if (cartIds.isEmpty())
+                break;
+            after = cartIds.get(cartIds.size() - 1);
+
+            // carts held by the write-behind store are live even when their row is old
+            List<Long> idle = cartIds.stream()
+                    .filter(cartId -> cartStore.emailOf(cartId) == null)
+                    .toList();
+            if (!idle.isEmpty()) {
+                int[] deleted = transactionTemplate.execute(status -> new int[] {
+                        cartItemRepository.deleteIdleCartItems(idle, cutoff),
+                        cartRepository.deleteIdleCartsByIdIn(idle, cutoff)
+                });
+                cartItems += deleted[0];
+                carts += deleted[1];
+            }
+            if (cartIds.size() < batchSize)
+                break;
+        }
+
+        long millis = (System.nanoTime() - start) / 1_000_000;
+        totalRuns.incrementAndGet();
+        totalCarts.addAndGet(carts);
+        totalCartItems.addAndGet(cartItems);
+        lastRun.set(new CartReaperStatsDTO(now, carts, cartItems, millis, null, null, null));
+        logger.info("Reaped {} carts ({} cart items) idle since {} in {} ms", carts, cartItems, cutoff, millis);
+    }
+
+    public CartReaperStatsDTO stats() {
+        CartReaperStatsDTO last = lastRun.get();
+        return new CartReaperStatsDTO(
+                last.getLastRunAt(),
+                last.getLastRunCarts(),
+                last.getLastRunCartItems(),
+                last.getLastRunMillis(),
+                totalRuns.get(),
+                totalCarts.get(),
+                totalCartItems.get()
+        );
+    }
+}
@@ -1,12 +1,12 @@
 package com.ecommerce.project.service;
 
 import com.ecommerce.project.exceptions.ResourceNotFoundException;
+import com.ecommerce.project.mapper.AddressMapper;
 import com.ecommerce.project.model.Address;
 import com.ecommerce.project.model.User;
 import com.ecommerce.project.payload.AddressDTO;
 import com.ecommerce.project.repositories.AddressRepository;
 import com.ecommerce.project.repositories.UserRepository;
-import org.modelmapper.ModelMapper;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
@@ -16,7 +16,7 @@ import java.util.List;
 public class AddressServiceImpl implements AddressService{
 
     @Autowired
-    ModelMapper modelMapper;
+    AddressMapper addressMapper;
 
     @Autowired
     AddressRepository addressRepository;
@@ -26,7 +26,7 @@ public class AddressServiceImpl implements AddressService{
 
     @Override
     public AddressDTO createAddress(AddressDTO addressDTO, User user) {
-        Address address = modelMapper.map(addressDTO, Address.class);
+        Address address = addressMapper.toEntity(addressDTO);
 
         List<Address> addressList = user.getAddresses();
         addressList.add(address);
@@ -35,7 +35,7 @@ public class AddressServiceImpl implements AddressService{
         address.setUser(user);
         Address savedAddress = addressRepository.save(address);
 
-        return modelMapper.map(savedAddress, AddressDTO.class);
+        return addressMapper.toDTO(savedAddress);
     }
 
     @Override
@@ -43,7 +43,7 @@ public class AddressServiceImpl implements AddressService{
         List<Address> addresses = addressRepository.findAll();
 
         return addresses.stream()
-                .map(address -> modelMapper.map(address, AddressDTO.class))
+                .map(addressMapper::toDTO)
                 .toList();
     }
 
@@ -51,7 +51,7 @@ public class AddressServiceImpl implements AddressService{
     public AddressDTO getAddressesById(Long addressId) {
         Address address = addressRepository.findById(addressId)
                 .orElseThrow(()-> new ResourceNotFoundException("Address", "adressId", addressId));
-        return modelMapper.map(address, AddressDTO.class);
+        return addressMapper.toDTO(address);
     }
 
     @Override
@@ -59,7 +59,7 @@ public class AddressServiceImpl implements AddressService{
         List<Address> addresses = user.getAddresses();
 
         return addresses.stream()
-                .map(address -> modelMapper.map(address, AddressDTO.class))
+                .map(addressMapper::toDTO)
                 .toList();
     }
 
@@ -82,7 +82,7 @@ public class AddressServiceImpl implements AddressService{
         user.getAddresses().add(updatedAddress);
         userRepository.save(user);
 
-        return modelMapper.map(updatedAddress, AddressDTO.class);
+        return addressMapper.toDTO(updatedAddress);
     }
 
     @Override
@@ -1,6 +1,8 @@
 package com.ecommerce.project.service;
 
 import com.ecommerce.project.payload.CartDTO;
+import com.ecommerce.project.payload.CartOperationDTO;
+import com.ecommerce.project.payload.CartResponse;
 import jakarta.transaction.Transactional;
 
 import java.util.List;
@@ -8,14 +10,16 @@ import java.util.List;
 public interface CartService {
     CartDTO addProductToCart(Long productId, Integer quantity);
 
-    List<CartDTO> getAllCarts();
+    CartResponse getAllCarts(String cursor, Integer pageSize);
 
     CartDTO getCart(String emailId, Long cartId);
 
+    CartDTO getUserCart(String emailId);
+
     @Transactional
     CartDTO updateProductQuantityInCart(Long productID, Integer quantity);
 
-    String deleteProductFromCart(Long cartId, Long productId);
+    CartDTO updateCartProducts(List<CartOperationDTO> operations);
 
-    void updateProductInCarts(Long cartId, Long productId);
+    String deleteProductFromCart(Long cartId, Long productId);
 }
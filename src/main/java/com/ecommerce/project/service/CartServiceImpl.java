@@ -1,24 +1,36 @@
 package com.ecommerce.project.service;
 
+import com.ecommerce.project.cache.WriteBehindCartStore;
+import com.ecommerce.project.config.AppConstants;
 import com.ecommerce.project.exceptions.APIException;
 import com.ecommerce.project.exceptions.ResourceNotFoundException;
+import com.ecommerce.project.mapper.CartMapper;
+import com.ecommerce.project.mapper.ProductMapper;
 import com.ecommerce.project.model.Cart;
 import com.ecommerce.project.model.CartItem;
 import com.ecommerce.project.model.Product;
 import com.ecommerce.project.payload.CartDTO;
-import com.ecommerce.project.payload.ProductDTO;
+import com.ecommerce.project.payload.CartOperationDTO;
+import com.ecommerce.project.payload.CartResponse;
+import com.ecommerce.project.repositories.CartLineRow;
 import com.ecommerce.project.util.AuthUtil;
+import com.ecommerce.project.util.CursorUtil;
 import com.ecommerce.project.repositories.CartItemRepository;
 import com.ecommerce.project.repositories.CartRepository;
 import com.ecommerce.project.repositories.ProductRepository;
 import jakarta.transaction.Transactional;
-import org.modelmapper.ModelMapper;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 
 import java.util.stream.Collectors;
-import java.util.stream.Stream;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
 
 
 @Service
@@ -34,7 +46,13 @@ public class CartServiceImpl implements  CartService{
     CartItemRepository cartItemRepository;
 
     @Autowired
-    ModelMapper modelMapper;
+    CartMapper cartMapper;
+
+    @Autowired
+    ProductMapper productMapper;
+
+    @Autowired
+    WriteBehindCartStore cartStore;
 
     @Autowired
     AuthUtil authUtil;
@@ -42,6 +60,9 @@ public class CartServiceImpl implements  CartService{
 
     @Override
     public CartDTO addProductToCart(Long productId, Integer quantity) {
+        if(cartStore.isEnabled())
+            return addProductToStoredCart(productId, quantity);
+
         // Find existing cart or create one
         Cart cart = createCart();
 
@@ -57,13 +78,7 @@ public class CartServiceImpl implements  CartService{
         if(cartItem != null){
             throw new APIException("Product " + product.getProductName() + " already exists");
         }
-        if(product.getQuantity() == 0){
-            throw new APIException(product.getProductName() + "is not available ");
-        }
-        if(product.getQuantity() < quantity){
-            throw new APIException("Please, make an order of the " + product.getProductName()
-            + " less than or equal to the quantity " + product.getQuantity() + ".");
-        }
+        validateStock(product, quantity);
 
         // Create Cart Item
         CartItem newCartItem = new CartItem();
@@ -82,62 +97,89 @@ public class CartServiceImpl implements  CartService{
 
         cartRepository.save(cart);
 
-        CartDTO cartDTO = modelMapper.map(cart, CartDTO.class);
-        List<CartItem> cartItems = cart.getCartItems();
-        Stream<ProductDTO> productStream = cartItems.stream().map(item -> {
-            ProductDTO map = modelMapper.map(item.getProduct(), ProductDTO.class);
-            map.setQuantity(item.getQuantity());
-            return map;
-        });
-
-        cartDTO.setProducts(productStream.toList());
         // Return updated cart
-        return cartDTO;
+        return cartMapper.toDTO(cart);
     }
 
-    @Override
-    public List<CartDTO> getAllCarts() {
-        List<Cart> carts = cartRepository.findAll();
+    private CartDTO addProductToStoredCart(Long productId, Integer quantity) {
+        Product product = productRepository.findById(productId)
+                .orElseThrow(() -> new ResourceNotFoundException("Product", "productId", productId));
+
+        return cartStore.write(authUtil.loggedInEmail(), this::createCart, cart -> {
+            if(cart.getLine(productId) != null){
+                throw new APIException("Product " + product.getProductName() + " already exists");
+            }
+            validateStock(product, quantity);
+            cart.putLine(new WriteBehindCartStore.CartLine(productMapper.toDTO(product), quantity,
+                    product.getDiscount(), product.getSpecialPrice()));
+            return cartMapper.toDTO(cart);
+        });
+    }
 
-        if (carts.isEmpty()) {
+    @Override
+    public CartResponse getAllCarts(String cursor, Integer pageSize) {
+        if(pageSize == null || pageSize < 1 || pageSize > AppConstants.MAX_PAGE_SIZE){
+            throw new APIException("Page size must be between 1 and " + AppConstants.MAX_PAGE_SIZE);
+        }
+        // the admin listing reads the tables, so pending cart changes are written first
+        cartStore.flushAll();
+
+        // one query for the page of ids, one for their lines, whatever the number of carts
+        Long after = 0L;
+        if(cursor != null && !cursor.isEmpty()){
+            try {
+                after = Long.valueOf(CursorUtil.decode(cursor, 1)[0]);
+            } catch (NumberFormatException e) {
+                throw new APIException("Invalid cursor: " + cursor);
+            }
+        }
+        List<Long> cartIds = cartRepository.findCartIdsAfter(after, Limit.of(pageSize + 1));
+        if (cartIds.isEmpty() && after == 0L) {
             throw new APIException("No cart exists");
         }
 
-        return carts.stream().map(cart -> {
-            CartDTO cartDTO = modelMapper.map(cart, CartDTO.class);
-
-            List<ProductDTO> products = cart.getCartItems().stream().map(cartItem -> {
-                ProductDTO productDTO = modelMapper.map(cartItem.getProduct(), ProductDTO.class);
-                productDTO.setQuantity(cartItem.getQuantity()); // Set the quantity from CartItem
-                return productDTO;
-            }).collect(Collectors.toList());
-
-
-            cartDTO.setProducts(products);
-
-            return cartDTO;
-
-        }).collect(Collectors.toList());
+        boolean lastPage = cartIds.size() <= pageSize;
+        if(!lastPage)
+            cartIds = cartIds.subList(0, pageSize);
+        List<CartDTO> carts = cartIds.isEmpty()
+                ? new ArrayList<>()
+                : cartMapper.toDTOs(cartRepository.findCartLinesByCartIdIn(cartIds));
+
+        CartResponse cartResponse = new CartResponse();
+        cartResponse.setContent(carts);
+        cartResponse.setPageSize(pageSize);
+        cartResponse.setLastPage(lastPage);
+        cartResponse.setNextCursor(lastPage ? null : CursorUtil.encode(String.valueOf(cartIds.get(cartIds.size() - 1))));
+        return cartResponse;
     }
 
     @Override
     public CartDTO getCart(String emailId, Long cartId) {
-        Cart cart = cartRepository.findCartByEmailAndCartId(emailId, cartId);
-        if(cart == null){
+        cartStore.flush(emailId);
+        List<CartLineRow> rows = cartRepository.findCartLines(emailId, cartId);
+        if(rows.isEmpty()){
             throw new ResourceNotFoundException("Cart", "cartId", cartId);
         }
-        CartDTO cartDTO = modelMapper.map(cart, CartDTO.class);
-        cart.getCartItems().forEach(c -> c.getProduct().setQuantity(c.getQuantity()));
-        List<ProductDTO> products = cart.getCartItems().stream()
-                .map(p -> modelMapper.map(p.getProduct(), ProductDTO.class))
-                .toList();
-        cartDTO.setProducts(products);
-        return cartDTO;
+        return cartMapper.toDTOs(rows).get(0);
+    }
+
+    @Override
+    public CartDTO getUserCart(String emailId) {
+        if(cartStore.isEnabled())
+            return cartStore.read(emailId, () -> findCartByEmail(emailId), cartMapper::toDTO);
+        List<CartLineRow> rows = cartRepository.findCartLinesByEmail(emailId);
+        if(rows.isEmpty()){
+            throw new ResourceNotFoundException("Cart", "email", emailId);
+        }
+        return cartMapper.toDTOs(rows).get(0);
     }
 
     @Transactional
     @Override
     public CartDTO updateProductQuantityInCart(Long productId, Integer quantity) {
+        if(cartStore.isEnabled())
+            return updateProductQuantityInStoredCart(productId, quantity);
+
         //Validation
         String emailId = authUtil.loggedInEmail();
         Cart userCart =  cartRepository.findCartByEmail(emailId);
@@ -149,13 +191,7 @@ public class CartServiceImpl implements  CartService{
         Product product = productRepository.findById(productId)
                 .orElseThrow(() -> new ResourceNotFoundException("Product", "productId", productId));
 
-        if(product.getQuantity() == 0){
-            throw new APIException(product.getProductName() + "is not available ");
-        }
-        if(product.getQuantity() < quantity){
-            throw new APIException("Please, make an order of the " + product.getProductName()
-                    + " less than or equal to the quantity " + product.getQuantity() + ".");
-        }
+        validateStock(product, quantity);
 
         CartItem cartItem  = cartItemRepository.findByCartItemByProductIdAndCartId(cartId, productId);
         if(cartItem == null ){
@@ -184,21 +220,160 @@ public class CartServiceImpl implements  CartService{
             cartItemRepository.deleteById(updatedItem.getCartItemId());
         }
 
-        CartDTO cartDTO = modelMapper.map(cart, CartDTO.class);
-        List<CartItem> cartItems = cart.getCartItems();
-        Stream<ProductDTO>  productStream = cartItems.stream().map(item -> {
-            ProductDTO prd = modelMapper.map(item.getProduct(), ProductDTO.class);
-            prd.setQuantity(item.getQuantity());
-            return prd;
+        return cartMapper.toDTO(cart);
+    }
+
+    private CartDTO updateProductQuantityInStoredCart(Long productId, Integer quantity) {
+        Product product = productRepository.findById(productId)
+                .orElseThrow(() -> new ResourceNotFoundException("Product", "productId", productId));
+        validateStock(product, quantity);
+
+        return cartStore.write(authUtil.loggedInEmail(), this::createCart, cart -> {
+            WriteBehindCartStore.CartLine line = cart.getLine(productId);
+            if(line == null){
+                throw new APIException("Product " + product.getProductName() + " not availabe in the cart!!");
+            }
+            int newQuantity = line.quantity() + quantity;
+            if(newQuantity < 0){
+                throw new APIException("The resulting quantity cannot be negative");
+            }
+            if(newQuantity == 0){
+                cart.removeLine(productId);
+            }
+            else{
+                cart.putLine(new WriteBehindCartStore.CartLine(productMapper.toDTO(product), newQuantity,
+                        product.getDiscount(), product.getSpecialPrice()));
+            }
+            return cartMapper.toDTO(cart);
         });
+    }
 
-        cartDTO.setProducts(productStream.toList());
-        return cartDTO;
+    // All operations are applied to the quantities first, so a failing one leaves the cart untouched
+    @Transactional
+    @Override
+    public CartDTO updateCartProducts(List<CartOperationDTO> operations) {
+        Set<Long> productIds = operations.stream()
+                .map(CartOperationDTO::getProductId)
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+        Map<Long, Product> products = productRepository.findAllById(productIds).stream()
+                .collect(Collectors.toMap(Product::getProductId, Function.identity()));
+        for (Long productId : productIds) {
+            if(!products.containsKey(productId)){
+                throw new ResourceNotFoundException("Product", "productId", productId);
+            }
+        }
+
+        if(cartStore.isEnabled()){
+            return cartStore.write(authUtil.loggedInEmail(), this::createCart, cart -> {
+                Map<Long, Integer> quantities = new LinkedHashMap<>();
+                cart.getLines().forEach(line -> quantities.put(line.productId(), line.quantity()));
+                applyOperations(quantities, operations, products);
+
+                for (Long productId : productIds) {
+                    Integer quantity = quantities.get(productId);
+                    Product product = products.get(productId);
+                    if(quantity == null)
+                        cart.removeLine(productId);
+                    else
+                        cart.putLine(new WriteBehindCartStore.CartLine(productMapper.toDTO(product), quantity,
+                                product.getDiscount(), product.getSpecialPrice()));
+                }
+                return cartMapper.toDTO(cart);
+            });
+        }
+
+        Cart cart = createCart();
+        Map<Long, CartItem> cartItems = cart.getCartItems().stream()
+                .collect(Collectors.toMap(cartItem -> cartItem.getProduct().getProductId(), Function.identity()));
+        Map<Long, Integer> quantities = new LinkedHashMap<>();
+        cartItems.forEach((productId, cartItem) -> quantities.put(productId, cartItem.getQuantity()));
+        applyOperations(quantities, operations, products);
+
+        List<CartItem> removedItems = new ArrayList<>();
+        List<CartItem> changedItems = new ArrayList<>();
+        for (Long productId : productIds) {
+            CartItem cartItem = cartItems.get(productId);
+            Integer quantity = quantities.get(productId);
+            Product product = products.get(productId);
+            if(quantity == null){
+                if(cartItem != null){
+                    removedItems.add(cartItem);
+                    cart.getCartItems().remove(cartItem);
+                }
+                continue;
+            }
+            if(cartItem == null){
+                cartItem = new CartItem();
+                cartItem.setCart(cart);
+                cartItem.setProduct(product);
+                cart.getCartItems().add(cartItem);
+            }
+            cartItem.setQuantity(quantity);
+            cartItem.setDiscount(product.getDiscount());
+            cartItem.setProductPrice(product.getSpecialPrice());
+            changedItems.add(cartItem);
+        }
+
+        cartItemRepository.deleteAllInBatch(removedItems);
+        cartItemRepository.saveAll(changedItems);
+        cart.recalculateTotalPrice();
+        cartRepository.save(cart);
+
+        return cartMapper.toDTO(cart);
+    }
+
+    // quantities are keyed by product id, a missing entry means the product is not in the cart
+    private void applyOperations(Map<Long, Integer> quantities, List<CartOperationDTO> operations,
+                                 Map<Long, Product> products){
+        for (CartOperationDTO operation : operations) {
+            Long productId = operation.getProductId();
+            Product product = products.get(productId);
+            Integer current = quantities.get(productId);
+
+            int quantity = switch (operation.getOperation()) {
+                case ADD -> (current == null ? 0 : current) + requireQuantity(operation, product);
+                case SET -> requireQuantity(operation, product);
+                case REMOVE -> {
+                    if(current == null){
+                        throw new APIException("Product " + product.getProductName() + " not availabe in the cart!!");
+                    }
+                    yield 0;
+                }
+            };
+
+            if(quantity == 0){
+                quantities.remove(productId);
+            }
+            else{
+                validateStock(product, quantity);
+                quantities.put(productId, quantity);
+            }
+        }
+    }
+
+    private int requireQuantity(CartOperationDTO operation, Product product){
+        if(operation.getQuantity() == null){
+            throw new APIException("Quantity is required to " + operation.getOperation() + " " + product.getProductName());
+        }
+        return operation.getQuantity();
     }
 
     @Transactional
     @Override
     public String deleteProductFromCart(Long cartId, Long productId) {
+        // carts held in memory are changed there, checkout and admin paths evict them before calling this
+        String emailId = cartStore.emailOf(cartId);
+        if(emailId != null){
+            return cartStore.write(emailId, () -> cartRepository.findById(cartId)
+                    .orElseThrow(() -> new ResourceNotFoundException("Cart", "cartId", cartId)), cart -> {
+                WriteBehindCartStore.CartLine line = cart.removeLine(productId);
+                if(line == null){
+                    throw new ResourceNotFoundException("Product", "productId", productId);
+                }
+                return "Product " + line.product().getProductName() + " removed from the cart";
+            });
+        }
+
         Cart cart = cartRepository.findById(cartId)
                 .orElseThrow(() -> new ResourceNotFoundException("Cart", "cartId", cartId));
 
@@ -208,34 +383,27 @@ public class CartServiceImpl implements  CartService{
             throw new ResourceNotFoundException("Product", "productId", productId);
         }
         cart.getCartItems().remove(cartItem);
-        cartItem.getProduct().getProducts().remove(cartItem);
         cart.setTotalPrice(cart.getTotalPrice() - (cartItem.getProductPrice() * cartItem.getQuantity()));
         cartItemRepository.deleteCartItemByProductIdAndCartId(cartId, productId);
         return "Product " + cartItem.getProduct().getProductName() + " removed from the cart";
     }
 
-    @Override
-    public void updateProductInCarts(Long cartId, Long productId) {
-        Cart cart  = cartRepository.findById(cartId)
-                .orElseThrow(() -> new ResourceNotFoundException("Cart", "cartId", cartId));
-
-        // Retrieve Product Details
-        Product product = productRepository.findById(productId)
-                .orElseThrow(() -> new ResourceNotFoundException("Product", "productId", productId));
-
-        CartItem cartItem = cartItemRepository.findByCartItemByProductIdAndCartId(cartId, productId);
-
-        if(cartItem == null ){
-            throw new APIException("Product " + product.getProductName() + " not available in the cart!!!");
+    private void validateStock(Product product, Integer quantity){
+        if(product.getAvailableQuantity() == 0){
+            throw new APIException(product.getProductName() + "is not available ");
         }
+        if(product.getAvailableQuantity() < quantity){
+            throw new APIException("Please, make an order of the " + product.getProductName()
+                    + " less than or equal to the quantity " + product.getAvailableQuantity() + ".");
+        }
+    }
 
-        double cartPrice = cart.getTotalPrice() - (cartItem.getProductPrice() * cartItem.getQuantity());
-        cartItem.setProductPrice(product.getSpecialPrice());
-        cart.setTotalPrice(cartPrice + (cartItem.getProductPrice() * cartItem.getQuantity()));
-
-        cartItem = cartItemRepository.save(cartItem);
-
-
+    private Cart findCartByEmail(String emailId){
+        Cart cart = cartRepository.findCartByEmail(emailId);
+        if(cart == null){
+            throw new ResourceNotFoundException("Cart", "email", emailId);
+        }
+        return cart;
     }
 
     private Cart createCart(){
@@ -8,6 +8,9 @@ import java.util.List;
 
 public interface CategoryService {
     CategoryResponse getAllCategories(Integer pageNumber, Integer pageSize, String sortBy, String sortOrder);
+
+    CategoryResponse getAllCategoriesByCursor(String cursor, Integer pageSize, String sortBy, String sortOrder);
+
     CategoryDTO createCategory(CategoryDTO categoryDTO);
 
     CategoryDTO deleteCategory(Long categoryId);
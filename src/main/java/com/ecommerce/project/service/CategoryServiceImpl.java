@@ -1,20 +1,32 @@
 package com.ecommerce.project.service;
 
+import com.ecommerce.project.cache.CatalogVersion;
+import com.ecommerce.project.cache.CategoryCatalog;
+import com.ecommerce.project.cache.CategoryCatalog.CategoryEntry;
+import com.ecommerce.project.cache.ProductResponseCache;
+import com.ecommerce.project.cache.WriteBehindCartStore;
 import com.ecommerce.project.model.Category;
 import com.ecommerce.project.payload.CategoryDTO;
 import com.ecommerce.project.payload.CategoryResponse;
+import com.ecommerce.project.repositories.CartItemRepository;
+import com.ecommerce.project.repositories.CartRepository;
 import com.ecommerce.project.repositories.CategoryRepository;
+import com.ecommerce.project.repositories.ProductRepository;
+import com.ecommerce.project.repositories.ProductStockShardRepository;
 import com.ecommerce.project.exceptions.APIException;
 import com.ecommerce.project.exceptions.ResourceNotFoundException;
-import org.modelmapper.ModelMapper;
+import com.ecommerce.project.mapper.CategoryMapper;
+import com.ecommerce.project.search.ProductSearchIndex;
+import com.ecommerce.project.util.CursorUtil;
+import jakarta.transaction.Transactional;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Pageable;
-import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 
 import java.nio.channels.FileChannel;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
 
 @Service
@@ -22,63 +34,164 @@ public class CategoryServiceImpl implements CategoryService{
 //    private List<Category> categories = new ArrayList<>();
 //    private Long nextId = 1L;
 
+    private static final Logger logger = LoggerFactory.getLogger(CategoryServiceImpl.class);
+
     @Autowired
     private CategoryRepository categoryRepository;
 
     @Autowired
-    private ModelMapper modelMapper;
+    private CategoryMapper categoryMapper;
+
+    @Autowired
+    private CategoryCatalog categoryCatalog;
+
+    @Autowired
+    private CatalogVersion catalogVersion;
+
+    @Autowired
+    private ProductResponseCache productResponseCache;
+
+    @Autowired
+    private ProductSearchIndex productSearchIndex;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private CartRepository cartRepository;
+
+    @Autowired
+    private CartItemRepository cartItemRepository;
+
+    @Autowired
+    private ProductStockShardRepository productStockShardRepository;
+
+    @Autowired
+    private WriteBehindCartStore cartStore;
+
     @Override
     public CategoryResponse getAllCategories(Integer pageNumber, Integer pageSize, String sortBy, String sortOrder) {
-        Sort sortByAndOrder = sortOrder.equalsIgnoreCase("asc")
-                ? Sort.by(sortBy).ascending()
-                : Sort.by(sortBy).descending();
-        Pageable pageDetails = PageRequest.of(pageNumber, pageSize, sortByAndOrder);
-        Page<Category> categoryPage = categoryRepository.findAll(pageDetails);
-        List<Category> categories = categoryPage.getContent();
+        List<CategoryEntry> sorted = sortedCategories(sortBy, sortOrder);
+        int from = Math.min(pageNumber * pageSize, sorted.size());
+        int to = Math.min(from + pageSize, sorted.size());
+        List<CategoryEntry> categories = sorted.subList(from, to);
+        if(categories.isEmpty())
+            throw new APIException("No category is created till now.");
+        List<CategoryDTO> categoryDTOS = categories.stream()
+                .map(category -> new CategoryDTO(category.categoryId(), category.categoryName()))
+                .toList();
+        int totalPages = (sorted.size() + pageSize - 1) / pageSize;
+        CategoryResponse categoryResponse = new CategoryResponse();
+        categoryResponse.setContent(categoryDTOS);
+        categoryResponse.setPageNumber(pageNumber);
+        categoryResponse.setPageSize(pageSize);
+        categoryResponse.setTotalElements((long) sorted.size());
+        categoryResponse.setTotalPages(totalPages);
+        categoryResponse.setLastPage(pageNumber + 1 >= totalPages);
+
+        return categoryResponse;
+    }
+
+    @Override
+    public CategoryResponse getAllCategoriesByCursor(String cursor, Integer pageSize, String sortBy, String sortOrder) {
+        List<CategoryEntry> sorted = sortedCategories(sortBy, sortOrder);
+        int from = 0;
+        if(cursor != null && !cursor.isEmpty()) {
+            String[] parts = CursorUtil.decode(cursor, 3);
+            if(!parts[0].equals(sortBy))
+                throw new APIException("Cursor was issued for sortBy " + parts[0] + ", not " + sortBy);
+            try {
+                CategoryEntry last = new CategoryEntry(Long.valueOf(parts[2]), parts[1]);
+                int index = Collections.binarySearch(sorted, last, comparator(sortBy, sortOrder));
+                from = index >= 0 ? index + 1 : -index - 1;
+            } catch (NumberFormatException e) {
+                throw new APIException("Invalid cursor: " + cursor);
+            }
+        }
+        int to = Math.min(from + pageSize, sorted.size());
+        List<CategoryEntry> categories = sorted.subList(from, to);
         if(categories.isEmpty())
             throw new APIException("No category is created till now.");
         List<CategoryDTO> categoryDTOS = categories.stream()
-                .map(category -> modelMapper.map(category, CategoryDTO.class))
+                .map(category -> new CategoryDTO(category.categoryId(), category.categoryName()))
                 .toList();
+        boolean lastPage = to == sorted.size();
+        CategoryEntry lastEntry = categories.get(categories.size() - 1);
         CategoryResponse categoryResponse = new CategoryResponse();
         categoryResponse.setContent(categoryDTOS);
-        categoryResponse.setPageNumber(categoryPage.getNumber());
-        categoryResponse.setPageSize(categoryPage.getSize());
-        categoryResponse.setTotalElements(categoryPage.getTotalElements());
-        categoryResponse.setTotalPages(categoryPage.getTotalPages());
-        categoryResponse.setLastPage(categoryPage.isLast());
+        categoryResponse.setPageSize(pageSize);
+        categoryResponse.setLastPage(lastPage);
+        categoryResponse.setNextCursor(lastPage ? null : CursorUtil.encode(sortBy,
+                sortBy.equals("categoryName") ? lastEntry.categoryName() : String.valueOf(lastEntry.categoryId()),
+                String.valueOf(lastEntry.categoryId())));
 
         return categoryResponse;
     }
 
+    // Listings are served from the in-memory catalog, which only knows the id and name columns
+    private List<CategoryEntry> sortedCategories(String sortBy, String sortOrder) {
+        if(!sortBy.equals("categoryId") && !sortBy.equals("categoryName"))
+            throw new APIException("Categories cannot be sorted by: " + sortBy);
+        List<CategoryEntry> sorted = categoryCatalog.snapshot().sortedBy(sortBy);
+        return sortOrder.equalsIgnoreCase("asc") ? sorted : sorted.reversed();
+    }
+
+    private Comparator<CategoryEntry> comparator(String sortBy, String sortOrder) {
+        Comparator<CategoryEntry> comparator = sortBy.equals("categoryName") ? CategoryCatalog.BY_NAME : CategoryCatalog.BY_ID;
+        return sortOrder.equalsIgnoreCase("asc") ? comparator : comparator.reversed();
+    }
+
     @Override
     public CategoryDTO createCategory(CategoryDTO categoryDTO) {
 //        category.setCategoryId(nextId++);
-        Category category = modelMapper.map(categoryDTO, Category.class);
+        Category category = categoryMapper.toEntity(categoryDTO);
         Category categoryFromDB = categoryRepository.findByCategoryName(category.getCategoryName());
         if(categoryFromDB != null)
             throw new APIException("Category with the name " + category.getCategoryName()+ " already exists.");
 
         Category savedCategory = categoryRepository.save(category);
-        return modelMapper.map(savedCategory, CategoryDTO.class);
+        categoryCatalog.put(savedCategory);
+        catalogVersion.bump();
+        return categoryMapper.toDTO(savedCategory);
     }
 
     @Override
+    @Transactional
     public CategoryDTO deleteCategory(Long categoryId) {
         Category category = categoryRepository.findById(categoryId)
                 .orElseThrow(()->new ResourceNotFoundException("Category", "CategoryId", categoryId));
+
+        // products of the category are removed with it: first their cart lines and stock shards,
+        // with the same bulk statements deleteProduct uses, whatever the number of products
+        List<Long> productIds = productRepository.findProductIdsByCategoryId(categoryId);
+        if(!productIds.isEmpty()){
+            cartStore.flushCartsContaining(productIds);
+            long start = System.nanoTime();
+            int carts = cartRepository.subtractProductsFromCartTotals(productIds);
+            int cartItems = cartItemRepository.deleteCartItemsByProductIdIn(productIds);
+            productStockShardRepository.deleteByProductIdIn(productIds);
+            logger.info("Removed {} products of category {} from {} carts ({} cart items) in {} ms",
+                    productIds.size(), categoryId, carts, cartItems, (System.nanoTime() - start) / 1_000_000);
+        }
+
         categoryRepository.delete(category);
-        return modelMapper.map(category, CategoryDTO.class);
+        categoryCatalog.remove(categoryId);
+        productResponseCache.invalidateCategory(categoryId);
+        catalogVersion.bump();
+        productIds.forEach(productSearchIndex::remove);
+        return categoryMapper.toDTO(category);
     }
 
     @Override
     public CategoryDTO updateCategory(CategoryDTO categoryDTO, Long categoryId) {
-        Category category = modelMapper.map(categoryDTO, Category.class);
+        Category category = categoryMapper.toEntity(categoryDTO);
         Category savedCategory = categoryRepository.findById(categoryId)
                  .orElseThrow(()-> new ResourceNotFoundException("Category", "CategoryId", categoryId));
         category.setCategoryId(categoryId);
         savedCategory = categoryRepository.save(category);
-        return modelMapper.map(savedCategory, CategoryDTO.class);
+        categoryCatalog.put(savedCategory);
+        catalogVersion.bump();
+        return categoryMapper.toDTO(savedCategory);
 
     }
 }
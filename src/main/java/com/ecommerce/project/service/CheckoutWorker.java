@@ -0,0 +1,173 @@
+package com.ecommerce.project.service;
+
+import com.ecommerce.project.exceptions.APIException;
+import com.ecommerce.project.exceptions.ResourceNotFoundException;
+import com.ecommerce.project.payload.CheckoutStatsDTO;
+import com.ecommerce.project.repositories.OrderRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.RecoverableDataAccessException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.CannotCreateTransactionException;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Finishes orders accepted in the PENDING state: every order gets a virtual thread,
+// the semaphore bounds how many of them touch the database at once
+@Component
+public class CheckoutWorker {
+
+    private static final Logger logger = LoggerFactory.getLogger(CheckoutWorker.class);
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Value("${project.checkout.async.max-concurrency:32}")
+    private int maxConcurrency;
+
+    @Value("${project.checkout.async.max-queue:10000}")
+    private int maxQueue;
+
+    @Value("${project.checkout.async.max-attempts:5}")
+    private int maxAttempts;
+
+    @Value("${project.checkout.async.retry-delay-ms:500}")
+    private long retryDelayMs;
+
+    private ExecutorService executor;
+    private Semaphore permits;
+
+    private final AtomicInteger queued = new AtomicInteger();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicLong completed = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong retried = new AtomicLong();
+    private final AtomicLong totalLatencyNanos = new AtomicLong();
+    private final AtomicLong maxLatencyNanos = new AtomicLong();
+
+    @PostConstruct
+    public void init() {
+        executor = Executors.newVirtualThreadPerTaskExecutor();
+        permits = new Semaphore(maxConcurrency);
+    }
+
+    // called before the order is written, so a saturated worker turns requests away instead of queueing forever
+    public void checkCapacity() {
+        if (queued.get() >= maxQueue)
+            throw new APIException("Too many orders are being processed, please try again shortly");
+    }
+
+    // must only be called once the order is committed
+    public void submit(Long orderId) {
+        long submittedAt = System.nanoTime();
+        queued.incrementAndGet();
+        executor.execute(() -> process(orderId, submittedAt, 1));
+    }
+
+    private void process(Long orderId, long submittedAt, int attempt) {
+        try {
+            permits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            queued.decrementAndGet();
+            return;
+        }
+        queued.decrementAndGet();
+        inFlight.incrementAndGet();
+        boolean done = true;
+        try {
+            orderService.completeOrder(orderId);
+            completed.incrementAndGet();
+        } catch (APIException | ResourceNotFoundException e) {
+            // the order itself cannot be fulfilled, e.g. a product ran out of stock
+            logger.warn("Order {} could not be completed: {}", orderId, e.getMessage());
+            failed.incrementAndGet();
+            try {
+                orderService.failOrder(orderId);
+            } catch (RuntimeException ex) {
+                logger.error("Order {} could not be marked as failed", orderId, ex);
+            }
+        } catch (RuntimeException e) {
+            // the payment has gone through: anything else is retried, and after the last attempt
+            // the order stays pending for the next start rather than being failed
+            if (attempt < maxAttempts && isTransient(e)) {
+                logger.warn("Order {} attempt {} failed, retrying: {}", orderId, attempt, e.getMessage());
+                retried.incrementAndGet();
+                retry(orderId, submittedAt, attempt + 1);
+                done = false;
+            } else {
+                logger.error("Order {} could not be completed after {} attempts, left pending", orderId, attempt, e);
+            }
+        } finally {
+            inFlight.decrementAndGet();
+            permits.release();
+            if (done) {
+                long latency = System.nanoTime() - submittedAt;
+                totalLatencyNanos.addAndGet(latency);
+                maxLatencyNanos.accumulateAndGet(latency, Math::max);
+            }
+        }
+    }
+
+    // the permit is released while waiting, the delay doubles with every attempt
+    private void retry(Long orderId, long submittedAt, int attempt) {
+        queued.incrementAndGet();
+        long delay = retryDelayMs << Math.min(attempt - 2, 10);
+        CompletableFuture.delayedExecutor(delay, TimeUnit.MILLISECONDS, executor)
+                .execute(() -> process(orderId, submittedAt, attempt));
+    }
+
+    private boolean isTransient(RuntimeException e) {
+        return e instanceof TransientDataAccessException
+                || e instanceof RecoverableDataAccessException
+                || e instanceof DataAccessResourceFailureException
+                || e instanceof CannotCreateTransactionException;
+    }
+
+    // orders accepted before a restart are still PENDING
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumePendingOrders() {
+        List<Long> orderIds = orderRepository.findOrderIdsByOrderStatus(OrderService.ORDER_PENDING);
+        if (!orderIds.isEmpty())
+            logger.info("Resuming {} pending orders", orderIds.size());
+        orderIds.forEach(this::submit);
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        executor.shutdown();
+        if (!executor.awaitTermination(30, TimeUnit.SECONDS))
+            logger.warn("{} orders are left pending until the next start", queued.get() + inFlight.get());
+    }
+
+    public CheckoutStatsDTO stats() {
+        long done = completed.get() + failed.get();
+        return new CheckoutStatsDTO(
+                queued.get(),
+                inFlight.get(),
+                completed.get(),
+                failed.get(),
+                retried.get(),
+                done == 0 ? 0.0 : totalLatencyNanos.get() / 1e6 / done,
+                maxLatencyNanos.get() / 1e6
+        );
+    }
+}
@@ -0,0 +1,90 @@
+package com.ecommerce.project.service;
+
+import com.ecommerce.project.exceptions.APIException;
+import jakarta.transaction.Transactional;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+// Stock is decremented in the database with a guarded UPDATE, never read-modify-written in Java.
+// Rows are always updated in product id order, so concurrent checkouts cannot deadlock on each other.
+// Flash-sale products can have their stock split across product_stock_shards: their products row
+// stays at 0 and a checkout takes its quantity from one randomly chosen bucket instead.
+@Component
+public class InventoryReservation {
+
+    private static final String RESERVE_STOCK = "UPDATE products SET quantity = quantity - ? " +
+            "WHERE product_id = ? AND quantity >= ?";
+    private static final String SHARDS = "SELECT shard_no, quantity FROM product_stock_shards " +
+            "WHERE product_id = ? ORDER BY shard_no";
+    private static final String RESERVE_SHARD = "UPDATE product_stock_shards SET quantity = quantity - ? " +
+            "WHERE product_id = ? AND shard_no = ? AND quantity >= ?";
+    private static final String LOCK_SHARDS = "SELECT shard_no, quantity FROM product_stock_shards " +
+            "WHERE product_id = ? ORDER BY shard_no FOR UPDATE";
+    private static final String TAKE_FROM_SHARD = "UPDATE product_stock_shards SET quantity = quantity - ? " +
+            "WHERE product_id = ? AND shard_no = ?";
+    private static final String PRODUCT_NAME = "SELECT product_name FROM products WHERE product_id = ?";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    // Runs in the caller's transaction: an out-of-stock line rolls back the whole order
+    @Transactional(Transactional.TxType.MANDATORY)
+    public void reserve(Map<Long, Integer> quantitiesByProductId) {
+        Map<Long, Integer> ordered = new TreeMap<>(quantitiesByProductId);
+        List<Object[]> batchArgs = new ArrayList<>(ordered.size());
+        ordered.forEach((productId, quantity) -> batchArgs.add(new Object[]{quantity, productId, quantity}));
+
+        int[] updated = jdbcTemplate.batchUpdate(RESERVE_STOCK, batchArgs);
+        for (int i = 0; i < updated.length; i++) {
+            Long productId = (Long) batchArgs.get(i)[1];
+            if (updated[i] == 0 && !reserveFromShards(productId, (Integer) batchArgs.get(i)[0])) {
+                throw new APIException("Product " + productName(productId) + " is out of stock for the requested quantity "
+                        + batchArgs.get(i)[0] + ".");
+            }
+        }
+    }
+
+    // products rows are all updated before any shard, so the lock order stays the same for every checkout
+    private boolean reserveFromShards(Long productId, int quantity) {
+        List<int[]> shards = jdbcTemplate.query(SHARDS, (rs, rowNum) -> new int[]{rs.getInt(1), rs.getInt(2)}, productId);
+        if (shards.isEmpty())
+            return false;
+
+        // a random first bucket spreads concurrent checkouts over the rows, the others are tried in turn
+        int start = ThreadLocalRandom.current().nextInt(shards.size());
+        for (int i = 0; i < shards.size(); i++) {
+            int[] shard = shards.get((start + i) % shards.size());
+            if (shard[1] >= quantity && jdbcTemplate.update(RESERVE_SHARD, quantity, productId, shard[0], quantity) == 1)
+                return true;
+        }
+
+        // no single bucket holds enough: lock them all in shard order and take from several
+        List<int[]> locked = jdbcTemplate.query(LOCK_SHARDS, (rs, rowNum) -> new int[]{rs.getInt(1), rs.getInt(2)}, productId);
+        if (locked.stream().mapToInt(shard -> shard[1]).sum() < quantity)
+            return false;
+        List<Object[]> takes = new ArrayList<>();
+        int remaining = quantity;
+        for (int[] shard : locked) {
+            int take = Math.min(remaining, shard[1]);
+            if (take > 0)
+                takes.add(new Object[]{take, productId, shard[0]});
+            remaining -= take;
+            if (remaining == 0)
+                break;
+        }
+        jdbcTemplate.batchUpdate(TAKE_FROM_SHARD, takes);
+        return true;
+    }
+
+    private String productName(Long productId) {
+        List<String> names = jdbcTemplate.queryForList(PRODUCT_NAME, String.class, productId);
+        return names.isEmpty() ? String.valueOf(productId) : names.get(0);
+    }
+}
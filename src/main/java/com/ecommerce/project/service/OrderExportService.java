@@ -0,0 +1,11 @@
+package com.ecommerce.project.service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDate;
+
+public interface OrderExportService {
+    String CSV_GZIP = "application/gzip";
+
+    void exportOrders(OutputStream outputStream, LocalDate from, LocalDate to) throws IOException;
+}
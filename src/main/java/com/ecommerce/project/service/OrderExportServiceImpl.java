@@ -0,0 +1,98 @@
+package com.ecommerce.project.service;
+
+import com.ecommerce.project.util.CsvUtil;
+import jakarta.transaction.Transactional;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.time.LocalDate;
+import java.util.zip.GZIPOutputStream;
+
+@Service
+public class OrderExportServiceImpl implements OrderExportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(OrderExportServiceImpl.class);
+
+    private static final int FETCH_SIZE = 1000;
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    // open ends of the order date range, within what the database can store
+    private static final LocalDate FIRST_ORDER_DATE = LocalDate.of(1, 1, 1);
+    private static final LocalDate LAST_ORDER_DATE = LocalDate.of(9999, 12, 31);
+
+    private static final String HEADER = "order_id,order_date,email,order_status,total_amount,address_id," +
+            "payment_id,payment_method,pg_name,pg_payment_id,pg_status," +
+            "order_item_id,product_id,product_name,quantity,ordered_product_price,discount";
+
+    // one row per order item, order and payment columns repeated; orders without items get one row
+    private static final String EXPORT_ORDERS = "SELECT o.order_id, o.order_date, o.email, o.order_status, o.total_amount, " +
+            "o.address_id, p.payment_id, p.payment_method, p.pg_name, p.pg_payment_id, p.pg_status, " +
+            "oi.order_item_id, oi.product_id, pr.product_name, oi.quantity, oi.ordered_product_price, oi.discount " +
+            "FROM orders o LEFT JOIN payments p ON p.payment_id = o.payment_id " +
+            "LEFT JOIN order_items oi ON oi.order_id = o.order_id " +
+            "LEFT JOIN products pr ON pr.product_id = oi.product_id " +
+            "WHERE o.order_date BETWEEN ? AND ? ORDER BY o.order_id, oi.order_item_id";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    // The transaction keeps auto-commit off, which the Postgres driver needs to fetch a forward-only
+    // cursor FETCH_SIZE rows at a time instead of reading the whole result into memory
+    @Override
+    @Transactional
+    public void exportOrders(OutputStream outputStream, LocalDate from, LocalDate to) throws IOException {
+        LocalDate fromDate = from != null ? from : FIRST_ORDER_DATE;
+        LocalDate toDate = to != null ? to : LAST_ORDER_DATE;
+
+        GZIPOutputStream gzip = new GZIPOutputStream(outputStream, BUFFER_SIZE);
+        Writer writer = new BufferedWriter(new OutputStreamWriter(gzip, StandardCharsets.UTF_8), BUFFER_SIZE);
+        writer.write(HEADER);
+        writer.write('\n');
+
+        long start = System.nanoTime();
+        StringBuilder line = new StringBuilder(256);
+        long[] exported = {0};
+        try {
+            jdbcTemplate.query(con -> {
+                PreparedStatement ps = con.prepareStatement(EXPORT_ORDERS, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                ps.setFetchSize(FETCH_SIZE);
+                ps.setObject(1, fromDate);
+                ps.setObject(2, toDate);
+                return ps;
+            }, rs -> {
+                line.setLength(0);
+                int columns = rs.getMetaData().getColumnCount();
+                for (int column = 1; column <= columns; column++) {
+                    if (column > 1)
+                        line.append(',');
+                    CsvUtil.appendField(line, rs.getString(column));
+                }
+                line.append('\n');
+                try {
+                    writer.append(line);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                exported[0]++;
+            });
+        } catch (UncheckedIOException e) {
+            // the client went away, the cursor is closed with the transaction
+            throw e.getCause();
+        }
+        writer.flush();
+        gzip.finish();
+        logger.info("Exported {} order rows in {} ms", exported[0], (System.nanoTime() - start) / 1_000_000);
+    }
+}
@@ -1,9 +1,29 @@
 package com.ecommerce.project.service;
 
 import com.ecommerce.project.payload.OrderDTO;
+import com.ecommerce.project.payload.OrderResponse;
+import com.ecommerce.project.payload.OrderStatusDTO;
 import jakarta.transaction.Transactional;
 
+import java.time.LocalDate;
+
 public interface OrderService {
+    String ORDER_PENDING = "Order Pending";
+    String ORDER_ACCEPTED = "Order Accepted !";
+    String ORDER_FAILED = "Order Failed";
+
     @Transactional
     OrderDTO placeOrder(String emailId, Long addressId, String paymentMethod, String pgName, String pgPaymentId, String pgStatus, String pgResponseMessage);
+
+    OrderStatusDTO acceptOrder(String emailId, Long addressId, String paymentMethod, String pgName, String pgPaymentId, String pgStatus, String pgResponseMessage);
+
+    void completeOrder(Long orderId);
+
+    void failOrder(Long orderId);
+
+    OrderStatusDTO getOrderStatus(String emailId, Long orderId);
+
+    OrderResponse getUserOrders(String emailId, String cursor, Integer pageSize);
+
+    OrderResponse searchOrders(String emailId, String orderStatus, LocalDate from, LocalDate to, String cursor, Integer pageSize);
 }
@@ -1,23 +1,39 @@
 package com.ecommerce.project.service;
 
+import com.ecommerce.project.cache.CatalogVersion;
+import com.ecommerce.project.cache.WriteBehindCartStore;
+import com.ecommerce.project.config.AppConstants;
 import com.ecommerce.project.exceptions.APIException;
 import com.ecommerce.project.exceptions.ResourceNotFoundException;
+import com.ecommerce.project.mapper.OrderMapper;
 import com.ecommerce.project.model.*;
+import com.ecommerce.project.outbox.OrderPlacedEvent;
+import com.ecommerce.project.outbox.OutboxPublisher;
+import com.ecommerce.project.outbox.StockReservedEvent;
 import com.ecommerce.project.payload.OrderDTO;
-import com.ecommerce.project.payload.OrderItemDTO;
+import com.ecommerce.project.payload.OrderResponse;
+import com.ecommerce.project.payload.OrderStatusDTO;
 import com.ecommerce.project.repositories.*;
+import com.ecommerce.project.util.CursorUtil;
 import jakarta.transaction.Transactional;
-import org.modelmapper.ModelMapper;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 
+import java.time.DateTimeException;
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 @Service
 public class OrderServiceImpl implements OrderService {
 
+    // open ends of the order date range, within what the database can store
+    private static final LocalDate FIRST_ORDER_DATE = LocalDate.of(1, 1, 1);
+    private static final LocalDate LAST_ORDER_DATE = LocalDate.of(9999, 12, 31);
+
     @Autowired
     CartRepository cartRepository;
 
@@ -27,6 +43,9 @@ public class OrderServiceImpl implements OrderService {
     @Autowired
     OrderItemRepository orderItemRepository;
 
+    @Autowired
+    CartItemRepository cartItemRepository;
+
     @Autowired
     OrderRepository orderRepository;
 
@@ -34,36 +53,202 @@ public class OrderServiceImpl implements OrderService {
     PaymentRepository paymentRepository;
 
     @Autowired
-    CartService cartService;
+    OrderMapper orderMapper;
 
     @Autowired
-    ModelMapper modelMapper;
+    ProductRepository productRepository;
 
     @Autowired
-    ProductRepository productRepository;
+    CatalogVersion catalogVersion;
+
+    @Autowired
+    WriteBehindCartStore cartStore;
+
+    @Autowired
+    InventoryReservation inventoryReservation;
+
+    @Autowired
+    OutboxPublisher outboxPublisher;
 
     @Override
     @Transactional
     public OrderDTO placeOrder(String emailId, Long addressId, String paymentMethod, String pgName, String pgPaymentId, String pgStatus, String pgResponseMessage) {
 
+        Cart cart = checkoutCart(emailId);
+        Address address = addressRepository.findById(addressId)
+                .orElseThrow(() -> new ResourceNotFoundException("Address", "addressId", addressId));
+
+        List<CartItem> cartItems = cart.getCartItems();
+
+        // reserve the stock before anything is written, an out-of-stock line fails the checkout here
+        Map<Long, Integer> quantities = new HashMap<>();
+        for (CartItem cartItem : cartItems) {
+            quantities.merge(cartItem.getProduct().getProductId(), cartItem.getQuantity(), Integer::sum);
+        }
+        inventoryReservation.reserve(quantities);
+
+        Payment payment = new Payment(paymentMethod, pgPaymentId, pgStatus, pgResponseMessage, pgName);
+        Order savedOrder = saveOrder(emailId, cart, address, payment, ORDER_ACCEPTED);
+        List<OrderItem> orderItems = savedOrder.getOrderItems();
+
+        // stock was already reserved, only the cart is cleared here: one delete for all its lines
+        cartItemRepository.deleteCartItemsByCartIdIn(List.of(cart.getCartId()));
+        cart.getCartItems().clear();
+        cart.setTotalPrice(0.0);
+
+        // stock is part of the public listings, they pick it up on the stock interval rather than per order
+        catalogVersion.stockChanged();
+        publishOrderEvents(savedOrder, orderItems, quantities);
+
+        // send back the order summary
+        OrderDTO orderDTO = orderMapper.toDTO(savedOrder, orderItems);
+
+        orderDTO.setAddressId(addressId);
+
+        return orderDTO;
+    }
+
+    // Only the order, its payment and items are written on the request thread,
+    // stock and cart are handled by completeOrder on the checkout worker
+    @Override
+    @Transactional
+    public OrderStatusDTO acceptOrder(String emailId, Long addressId, String paymentMethod, String pgName, String pgPaymentId, String pgStatus, String pgResponseMessage) {
+        Cart cart = checkoutCart(emailId);
+        Address address = addressRepository.findById(addressId)
+                .orElseThrow(() -> new ResourceNotFoundException("Address", "addressId", addressId));
+
+        Payment payment = new Payment(paymentMethod, pgPaymentId, pgStatus, pgResponseMessage, pgName);
+        Order savedOrder = saveOrder(emailId, cart, address, payment, ORDER_PENDING);
+        return new OrderStatusDTO(savedOrder.getOrderId(), savedOrder.getOrderStatus());
+    }
+
+    @Override
+    @Transactional
+    public void completeOrder(Long orderId) {
+        // every instance resubmits pending orders on start: the row lock makes sure only one
+        // of them reserves stock and publishes the order, the others find it already done
+        Order order = orderRepository.findByIdForUpdate(orderId)
+                .orElseThrow(() -> new ResourceNotFoundException("Order", "orderId", orderId));
+        if (!ORDER_PENDING.equals(order.getOrderStatus()))
+            return;
+
+        Map<Long, Integer> quantities = new HashMap<>();
+        for (OrderItem orderItem : order.getOrderItems()) {
+            quantities.merge(orderItem.getProduct().getProductId(), orderItem.getQuantity(), Integer::sum);
+        }
+        inventoryReservation.reserve(quantities);
+
+        // the ordered products leave the cart, anything added since the order was placed stays
+        cartStore.flushAndEvict(order.getEmail());
+        Cart cart = cartRepository.findCartByEmail(order.getEmail());
+        if (cart != null) {
+            cartItemRepository.deleteCartItemsByCartIdAndProductIdIn(cart.getCartId(), quantities.keySet());
+            cartRepository.recalculateTotalPrice(cart.getCartId());
+        }
+
+        order.setOrderStatus(ORDER_ACCEPTED);
+        // stock is part of the public listings, they pick it up on the stock interval rather than per order
+        catalogVersion.stockChanged();
+        publishOrderEvents(order, order.getOrderItems(), quantities);
+    }
+
+    @Override
+    @Transactional
+    public void failOrder(Long orderId) {
+        Order order = orderRepository.findByIdForUpdate(orderId)
+                .orElseThrow(() -> new ResourceNotFoundException("Order", "orderId", orderId));
+        if (ORDER_PENDING.equals(order.getOrderStatus()))
+            order.setOrderStatus(ORDER_FAILED);
+    }
+
+    @Override
+    public OrderStatusDTO getOrderStatus(String emailId, Long orderId) {
+        Order order = orderRepository.findById(orderId)
+                .filter(o -> o.getEmail().equals(emailId))
+                .orElseThrow(() -> new ResourceNotFoundException("Order", "orderId", orderId));
+        return new OrderStatusDTO(order.getOrderId(), order.getOrderStatus());
+    }
+
+    @Override
+    public OrderResponse getUserOrders(String emailId, String cursor, Integer pageSize) {
+        checkPageSize(pageSize);
+        OrderCursor before = decodeCursor(cursor);
+        List<OrderRow> orderRows = orderRepository.findOrderRowsByEmail(emailId,
+                before.orderDate(), before.orderId(), Limit.of(pageSize + 1));
+        return toOrderResponse(orderRows, pageSize);
+    }
+
+    @Override
+    public OrderResponse searchOrders(String emailId, String orderStatus, LocalDate from, LocalDate to, String cursor, Integer pageSize) {
+        checkPageSize(pageSize);
+        OrderCursor before = decodeCursor(cursor);
+        List<OrderRow> orderRows = orderRepository.searchOrderRows(emailId, orderStatus,
+                from != null ? from : FIRST_ORDER_DATE, to != null ? to : LAST_ORDER_DATE,
+                before.orderDate(), before.orderId(), Limit.of(pageSize + 1));
+        return toOrderResponse(orderRows, pageSize);
+    }
+
+    private void checkPageSize(Integer pageSize) {
+        if (pageSize == null || pageSize < 1 || pageSize > AppConstants.MAX_PAGE_SIZE)
+            throw new APIException("Page size must be between 1 and " + AppConstants.MAX_PAGE_SIZE);
+    }
+
+    // the first page starts after an order that sorts ahead of every real one
+    private OrderCursor decodeCursor(String cursor) {
+        if (cursor == null || cursor.isEmpty())
+            return new OrderCursor(LAST_ORDER_DATE, Long.MAX_VALUE);
+        String[] parts = CursorUtil.decode(cursor, 2);
+        try {
+            return new OrderCursor(LocalDate.parse(parts[0]), Long.valueOf(parts[1]));
+        } catch (NumberFormatException | DateTimeException e) {
+            throw new APIException("Invalid cursor: " + cursor);
+        }
+    }
+
+    // one query for the page of orders, one for their items, whatever the page size
+    private OrderResponse toOrderResponse(List<OrderRow> orderRows, Integer pageSize) {
+        boolean lastPage = orderRows.size() <= pageSize;
+        if (!lastPage)
+            orderRows = orderRows.subList(0, pageSize);
+        List<OrderItemRow> itemRows = orderRows.isEmpty()
+                ? new ArrayList<>()
+                : orderItemRepository.findOrderItemRowsByOrderIdIn(orderRows.stream().map(OrderRow::orderId).toList());
+
+        OrderResponse orderResponse = new OrderResponse();
+        orderResponse.setContent(orderMapper.toDTOs(orderRows, itemRows));
+        orderResponse.setPageSize(pageSize);
+        orderResponse.setLastPage(lastPage);
+        if (!lastPage) {
+            OrderRow last = orderRows.get(orderRows.size() - 1);
+            orderResponse.setNextCursor(CursorUtil.encode(last.orderDate().toString(), String.valueOf(last.orderId())));
+        }
+        return orderResponse;
+    }
+
+    private Cart checkoutCart(String emailId) {
+        // pending in-memory changes must be in the tables before the cart is read
+        cartStore.flushAndEvict(emailId);
+
         // Getting user cart
         Cart cart = cartRepository.findCartByEmail(emailId);
         if (cart == null) {
             throw new ResourceNotFoundException("Cart", "email", emailId);
         }
+        if (cart.getCartItems().isEmpty()) {
+            throw new APIException("Cart is empty");
+        }
+        return cart;
+    }
 
-        Address address = addressRepository.findById(addressId)
-                .orElseThrow(() -> new ResourceNotFoundException("Address", "addressId", addressId));
-
+    private Order saveOrder(String emailId, Cart cart, Address address, Payment payment, String orderStatus) {
         // Create a new order with payment info
         Order order = new Order();
         order.setEmail(emailId);
         order.setOrderDate(LocalDate.now());
         order.setTotalAmount(cart.getTotalPrice());
-        order.setOrderStatus("Order Accepted !");
+        order.setOrderStatus(orderStatus);
         order.setAddress(address);
 
-        Payment payment = new Payment(paymentMethod, pgPaymentId, pgStatus, pgResponseMessage, pgName);
         payment.setOrder(order);
         payment = paymentRepository.save(payment);
         order.setPayment(payment);
@@ -71,13 +256,8 @@ public class OrderServiceImpl implements OrderService {
         Order savedOrder = orderRepository.save(order);
 
         // Get items from the cart into the order items
-        List<CartItem> cartItems = cart.getCartItems();
-        if (cartItems.isEmpty()) {
-            throw new APIException("Cart is empty");
-        }
-
         List<OrderItem> orderItems = new ArrayList<>();
-        for (CartItem cartItem : cartItems) {
+        for (CartItem cartItem : cart.getCartItems()) {
             OrderItem orderItem = new OrderItem();
             orderItem.setProduct(cartItem.getProduct());
             orderItem.setQuantity(cartItem.getQuantity());
@@ -87,43 +267,23 @@ public class OrderServiceImpl implements OrderService {
             orderItems.add(orderItem);
         }
 
-        orderItems = orderItemRepository.saveAll(orderItems);
-
-//        cart.getCartItems().forEach(item -> {
-//            int quantity = item.getQuantity();
-//            Product product = item.getProduct();
-//
-//            // Reduce stock quantity
-//            product.setQuantity(product.getQuantity() - quantity);
-//
-//            // Save product back to the database
-//            productRepository.save(product);
-//
-//            // Remove items from cart
-//            cartService.deleteProductFromCart(cart.getCartId(), item.getProduct().getProductId());
-//        });
-//above one giving concurrentModification error
-
-        // update the product stock
-        List<CartItem> cartItemsCopy = new ArrayList<>(cart.getCartItems());
-        for (CartItem item : cartItemsCopy) {
-            int quantity = item.getQuantity();
-            Product product = item.getProduct();
-
-            // Reduce stock quantity
-            product.setQuantity(product.getQuantity() - quantity);
-            productRepository.save(product);
-
-            // Remove items from cart
-            cartService.deleteProductFromCart(cart.getCartId(), item.getProduct().getProductId());
-        }
-
-        // send back the order summary
-        OrderDTO orderDTO = modelMapper.map(savedOrder, OrderDTO.class);
-        orderItems.forEach(item -> orderDTO.getOrderItems().add(modelMapper.map(item, OrderItemDTO.class)));
+        savedOrder.setOrderItems(orderItemRepository.saveAll(orderItems));
+        return savedOrder;
+    }
 
-        orderDTO.setAddressId(addressId);
+    // written in the checkout transaction, downstream consumers are reached through the outbox relay
+    private void publishOrderEvents(Order order, List<OrderItem> orderItems, Map<Long, Integer> quantities) {
+        List<OrderPlacedEvent.Line> lines = orderItems.stream()
+                .map(item -> new OrderPlacedEvent.Line(item.getProduct().getProductId(),
+                        item.getProduct().getCategory().getCategoryId(), item.getQuantity(),
+                        item.getOrderedProductPrice(), item.getDiscount()))
+                .toList();
+        outboxPublisher.publish("Order", order.getOrderId(), OrderPlacedEvent.TYPE,
+                new OrderPlacedEvent(order.getOrderId(), order.getEmail(), order.getOrderDate(), order.getTotalAmount(), lines));
+        outboxPublisher.publish("Order", order.getOrderId(), StockReservedEvent.TYPE,
+                new StockReservedEvent(order.getOrderId(), quantities));
+    }
 
-        return orderDTO;
+    private record OrderCursor(LocalDate orderDate, Long orderId) {
     }
 }
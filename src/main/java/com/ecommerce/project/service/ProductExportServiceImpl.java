@@ -0,0 +1,66 @@
+package com.ecommerce.project.service;
+
+import com.ecommerce.project.mapper.ProductMapper;
+import com.ecommerce.project.model.Product;
+import com.ecommerce.project.payload.ProductDTO;
+import com.ecommerce.project.repositories.ProductRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.transaction.Transactional;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+@Service
+public class ProductExportServiceImpl implements ProductExportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductExportServiceImpl.class);
+
+    private static final int FLUSH_EVERY = 500;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ProductMapper productMapper;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    // the transaction keeps the JDBC cursor open while rows are written to the client
+    @Override
+    @Transactional
+    public void exportProducts(OutputStream outputStream) throws IOException {
+        ObjectWriter writer = objectMapper.writerFor(ProductDTO.class);
+        OutputStream out = new BufferedOutputStream(outputStream);
+        long exported = 0;
+
+        try (Stream<Product> products = productRepository.streamAllForExport()) {
+            Iterator<Product> iterator = products.iterator();
+            while (iterator.hasNext()) {
+                Product product = iterator.next();
+                out.write(writer.writeValueAsBytes(productMapper.toDTO(product)));
+                out.write('\n');
+                // only the product is detached, categories and sellers stay managed and are shared by later rows
+                entityManager.detach(product);
+
+                if (++exported % FLUSH_EVERY == 0)
+                    out.flush();
+            }
+        }
+        out.flush();
+        logger.info("Exported {} products", exported);
+    }
+}
@@ -0,0 +1,13 @@
+package com.ecommerce.project.service;
+
+import com.ecommerce.project.payload.ProductImportResponse;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+public interface ProductImportService {
+    String CSV = "text/csv";
+    String NDJSON = "application/x-ndjson";
+
+    ProductImportResponse importProducts(Long categoryId, InputStream inputStream, String format) throws IOException;
+}
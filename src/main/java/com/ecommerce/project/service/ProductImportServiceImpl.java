@@ -0,0 +1,268 @@
+package com.ecommerce.project.service;
+
+import com.ecommerce.project.cache.CatalogVersion;
+import com.ecommerce.project.cache.CategoryCatalog;
+import com.ecommerce.project.cache.ProductResponseCache;
+import com.ecommerce.project.exceptions.APIException;
+import com.ecommerce.project.exceptions.ResourceNotFoundException;
+import com.ecommerce.project.model.Product;
+import com.ecommerce.project.payload.ProductDTO;
+import com.ecommerce.project.payload.ProductImportError;
+import com.ecommerce.project.payload.ProductImportResponse;
+import com.ecommerce.project.repositories.ProductRepository;
+import com.ecommerce.project.search.ProductSearchIndex;
+import com.ecommerce.project.util.CsvUtil;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.*;
+
+@Service
+public class ProductImportServiceImpl implements ProductImportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductImportServiceImpl.class);
+
+    private static final int MAX_REPORTED_ERRORS = 1000;
+    private static final String INSERT_PRODUCT = "INSERT INTO products " +
+            "(product_name, description, image, quantity, price, discount, special_price, category_id) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private CategoryCatalog categoryCatalog;
+
+    @Autowired
+    private ProductResponseCache productResponseCache;
+
+    @Autowired
+    private CatalogVersion catalogVersion;
+
+    @Autowired
+    private ProductSearchIndex productSearchIndex;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private Validator validator;
+
+    @Value("${project.import.batch-size:1000}")
+    private int batchSize;
+
+    private record ImportRow(long line, Product product) {
+    }
+
+    @Override
+    public ProductImportResponse importProducts(Long categoryId, InputStream inputStream, String format) throws IOException {
+        if(!categoryCatalog.exists(categoryId))
+            throw new ResourceNotFoundException("Category","category", categoryId);
+
+        long start = System.currentTimeMillis();
+        // names already in the category plus every accepted row, for duplicate detection
+        Set<String> productNames = new HashSet<>(productRepository.findProductNamesByCategoryId(categoryId));
+        ProductImportResponse response = new ProductImportResponse();
+        List<ImportRow> batch = new ArrayList<>(batchSize);
+
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8))) {
+            boolean csv = format.equals(CSV);
+            Map<String, Integer> columns = csv ? readCsvHeader(reader.readLine()) : Map.of();
+            long lineNumber = csv ? 1 : 0;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if(line.isBlank())
+                    continue;
+                response.setTotalRows(response.getTotalRows() + 1);
+
+                ProductDTO productDTO;
+                try {
+                    productDTO = csv ? parseCsvRow(line, columns) : objectMapper.readValue(line, ProductDTO.class);
+                } catch (JsonProcessingException e) {
+                    reject(response, lineNumber, null, "Malformed JSON: " + e.getOriginalMessage());
+                    continue;
+                } catch (NumberFormatException e) {
+                    reject(response, lineNumber, null, "Malformed number: " + e.getMessage());
+                    continue;
+                } catch (APIException e) {
+                    reject(response, lineNumber, null, e.getMessage());
+                    continue;
+                }
+
+                Product product = toProduct(productDTO);
+                String error = validate(product, productNames);
+                if(error != null) {
+                    reject(response, lineNumber, product.getProductName(), error);
+                    continue;
+                }
+                productNames.add(product.getProductName());
+                batch.add(new ImportRow(lineNumber, product));
+
+                if(batch.size() >= batchSize) {
+                    insertBatch(categoryId, batch, response);
+                    batch.clear();
+                }
+            }
+        }
+        insertBatch(categoryId, batch, response);
+        productResponseCache.invalidateCategory(categoryId);
+        catalogVersion.bump();
+
+        logger.info("Imported {} of {} products into category {} in {} ms",
+                response.getImported(), response.getTotalRows(), categoryId, System.currentTimeMillis() - start);
+        return response;
+    }
+
+    private Map<String, Integer> readCsvHeader(String header) {
+        if(header == null)
+            throw new APIException("Import file is empty");
+        Map<String, Integer> columns = new HashMap<>();
+        List<String> names = CsvUtil.splitLine(header);
+        for (int i = 0; i < names.size(); i++) {
+            columns.put(names.get(i).trim(), i);
+        }
+        for (String required : List.of("productName", "description", "price")) {
+            if(!columns.containsKey(required))
+                throw new APIException("CSV header must contain column " + required);
+        }
+        return columns;
+    }
+
+    private ProductDTO parseCsvRow(String line, Map<String, Integer> columns) {
+        List<String> fields = CsvUtil.splitLine(line);
+        if(fields.size() < columns.size())
+            throw new APIException("Expected " + columns.size() + " columns but found " + fields.size());
+
+        ProductDTO productDTO = new ProductDTO();
+        productDTO.setProductName(field(fields, columns, "productName"));
+        productDTO.setDescription(field(fields, columns, "description"));
+        productDTO.setImage(field(fields, columns, "image"));
+        String quantity = field(fields, columns, "quantity");
+        productDTO.setQuantity(quantity == null ? 0 : Integer.parseInt(quantity));
+        String price = field(fields, columns, "price");
+        if(price == null)
+            throw new APIException("Price is required");
+        productDTO.setPrice(Double.parseDouble(price));
+        String discount = field(fields, columns, "discount");
+        productDTO.setDiscount(discount == null ? 0 : Double.parseDouble(discount));
+        return productDTO;
+    }
+
+    private String field(List<String> fields, Map<String, Integer> columns, String column) {
+        Integer index = columns.get(column);
+        if(index == null)
+            return null;
+        String value = fields.get(index).trim();
+        return value.isEmpty() ? null : value;
+    }
+
+    private Product toProduct(ProductDTO productDTO) {
+        Product product = new Product();
+        product.setProductName(productDTO.getProductName());
+        product.setDescription(productDTO.getDescription());
+        product.setImage(productDTO.getImage() == null ? "default.png" : productDTO.getImage());
+        product.setQuantity(productDTO.getQuantity() == null ? 0 : productDTO.getQuantity());
+        product.setPrice(productDTO.getPrice());
+        product.setDiscount(productDTO.getDiscount());
+        double specialPrice = product.getPrice() -
+                ((product.getDiscount() * 0.01) * product.getPrice());
+        product.setSpecialPrice(specialPrice);
+        return product;
+    }
+
+    private String validate(Product product, Set<String> productNames) {
+        Set<ConstraintViolation<Product>> violations = validator.validate(product);
+        if(!violations.isEmpty())
+            return violations.iterator().next().getMessage();
+        if(product.getPrice() < 0)
+            return "Price cannot be negative";
+        if(product.getQuantity() < 0)
+            return "Quantity cannot be negative";
+        if(product.getDiscount() < 0 || product.getDiscount() > 100)
+            return "Discount must be between 0 and 100";
+        if(productNames.contains(product.getProductName()))
+            return "Product already exists!!!";
+        return null;
+    }
+
+    // Each batch commits on its own, so a failing batch only rejects its own rows
+    private void insertBatch(Long categoryId, List<ImportRow> batch, ProductImportResponse response) {
+        if(batch.isEmpty())
+            return;
+
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        try {
+            transactionTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(
+                    connection -> connection.prepareStatement(INSERT_PRODUCT, new String[]{"product_id"}),
+                    new BatchPreparedStatementSetter() {
+                        @Override
+                        public void setValues(PreparedStatement ps, int i) throws SQLException {
+                            Product product = batch.get(i).product();
+                            ps.setString(1, product.getProductName());
+                            ps.setString(2, product.getDescription());
+                            ps.setString(3, product.getImage());
+                            ps.setInt(4, product.getQuantity());
+                            ps.setDouble(5, product.getPrice());
+                            ps.setDouble(6, product.getDiscount());
+                            ps.setDouble(7, product.getSpecialPrice());
+                            ps.setLong(8, categoryId);
+                        }
+
+                        @Override
+                        public int getBatchSize() {
+                            return batch.size();
+                        }
+                    },
+                    keyHolder));
+        } catch (DataAccessException e) {
+            logger.warn("Product import batch of {} rows failed", batch.size(), e);
+            batch.forEach(row -> reject(response, row.line(), row.product().getProductName(),
+                    "Insert failed: " + e.getMostSpecificCause().getMessage()));
+            return;
+        }
+
+        List<Map<String, Object>> keys = keyHolder.getKeyList();
+        for (int i = 0; i < batch.size(); i++) {
+            Product product = batch.get(i).product();
+            Long productId = ((Number) keys.get(i).get("product_id")).longValue();
+            productSearchIndex.index(productId, product.getProductName(), product.getDescription());
+        }
+        response.setImported(response.getImported() + batch.size());
+    }
+
+    private void reject(ProductImportResponse response, long line, String productName, String message) {
+        response.setFailed(response.getFailed() + 1);
+        if(response.getErrors().size() < MAX_REPORTED_ERRORS) {
+            response.getErrors().add(new ProductImportError(line, productName, message));
+        } else {
+            response.setErrorsTruncated(true);
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.ecommerce.project.service;
 
+import com.ecommerce.project.payload.CacheStatsDTO;
 import com.ecommerce.project.payload.ProductDTO;
 import com.ecommerce.project.payload.ProductResponse;
 import org.springframework.web.multipart.MultipartFile;
@@ -13,11 +14,21 @@ public interface ProductService {
 
     ProductResponse serchByCategoryId(Long categoryId, Integer pageNumber, Integer pageSize, String sortBy, String sortOrder);
 
+    ProductResponse getAllProductsByCursor(String cursor, Integer pageSize, String sortBy, String sortOrder);
+
+    ProductResponse serchByCategoryIdByCursor(Long categoryId, String cursor, Integer pageSize, String sortBy, String sortOrder);
+
     ProductResponse searchProductByKeyword(String keyword, Integer pageNumber, Integer pageSize, String sortBy, String sortOrder);
 
     ProductDTO updateProduct(Long productId, ProductDTO productDTO);
 
     ProductDTO deleteProduct(Long productId);
 
+    ProductDTO shardProductStock(Long productId, Integer shards);
+
+    ProductDTO unshardProductStock(Long productId);
+
     ProductDTO updateProductImage(Long productId, MultipartFile image) throws IOException;
+
+    CacheStatsDTO getProductCacheStats();
 }
@@ -1,17 +1,31 @@
 package com.ecommerce.project.service;
 
+import com.ecommerce.project.cache.CatalogVersion;
+import com.ecommerce.project.cache.CategoryCatalog;
+import com.ecommerce.project.cache.ProductPageKey;
+import com.ecommerce.project.cache.ProductResponseCache;
+import com.ecommerce.project.cache.WriteBehindCartStore;
+import com.ecommerce.project.config.AppConstants;
 import com.ecommerce.project.exceptions.APIException;
-import com.ecommerce.project.model.Cart;
 import com.ecommerce.project.model.Category;
 import com.ecommerce.project.model.Product;
-import com.ecommerce.project.payload.CartDTO;
+import com.ecommerce.project.model.ProductStockShard;
+import com.ecommerce.project.payload.CacheStatsDTO;
 import com.ecommerce.project.payload.ProductDTO;
 import com.ecommerce.project.payload.ProductResponse;
+import com.ecommerce.project.repositories.CartItemRepository;
 import com.ecommerce.project.repositories.CartRepository;
 import com.ecommerce.project.repositories.CategoryRepository;
 import com.ecommerce.project.repositories.ProductRepository;
+import com.ecommerce.project.repositories.ProductStockShardRepository;
 import com.ecommerce.project.exceptions.ResourceNotFoundException;
-import org.modelmapper.ModelMapper;
+import com.ecommerce.project.mapper.ProductMapper;
+import com.ecommerce.project.search.ProductSearchIndex;
+import com.ecommerce.project.search.SearchResult;
+import com.ecommerce.project.util.CursorUtil;
+import jakarta.transaction.Transactional;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
@@ -22,80 +36,103 @@ import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 
 @Service
 public class ProductServiceImpl implements ProductService {
 
-    @Autowired
-    private CartService cartService;
+    private static final Logger logger = LoggerFactory.getLogger(ProductServiceImpl.class);
+
+    private static final int MAX_STOCK_SHARDS = 64;
 
     @Autowired
     private CartRepository cartRepository;
 
+    @Autowired
+    private CartItemRepository cartItemRepository;
+
     @Autowired
     private ProductRepository productRepository;
 
+    @Autowired
+    private ProductStockShardRepository productStockShardRepository;
+
     @Autowired
     private CategoryRepository categoryRepository;
 
     @Autowired
-    private ModelMapper modelMapper;
+    private CategoryCatalog categoryCatalog;
+
+    @Autowired
+    private ProductMapper productMapper;
 
     @Autowired
     private FileService fileservice;
 
+    @Autowired
+    private ProductResponseCache productResponseCache;
+
+    @Autowired
+    private CatalogVersion catalogVersion;
+
+    @Autowired
+    private ProductSearchIndex productSearchIndex;
+
+    @Autowired
+    private WriteBehindCartStore cartStore;
+
     @Value("${project.image}")
     private String path;
 
     @Override
     public ProductDTO addProduct(Long categoryId, ProductDTO productDTO) {
-        Category category = categoryRepository.findById(categoryId)
-               .orElseThrow(()->
-                       new ResourceNotFoundException("Category","category", categoryId));
-
-        boolean isProductNotPresent = true;
-
-        List<Product> products = category.getProducts();
-        for (Product value : products) {
-            if (value.getProductName().equals(productDTO.getProductName())) {
-                isProductNotPresent = false;
-                break;
-            }
-        }
+        if(!categoryCatalog.exists(categoryId))
+            throw new ResourceNotFoundException("Category","category", categoryId);
 
-        if(!isProductNotPresent)
+        if(productRepository.existsByProductNameAndCategoryCategoryId(productDTO.getProductName(), categoryId))
             throw new APIException("Product already exists!!!");
 
-        Product product = modelMapper.map(productDTO, Product.class);
+        Category category = categoryRepository.getReferenceById(categoryId);
+
+        Product product = productMapper.toEntity(productDTO);
         product.setCategory(category);
         product.setImage("default.png");
         double specialPrice = product.getPrice() -
                ((product.getDiscount() * 0.01) * product.getPrice());
         product.setSpecialPrice(specialPrice);
         Product savedProduct = productRepository.save(product);
-        return modelMapper.map(savedProduct, ProductDTO.class);
+        productResponseCache.invalidateCategory(categoryId);
+        catalogVersion.bump();
+        productSearchIndex.index(savedProduct.getProductId(), savedProduct.getProductName(), savedProduct.getDescription());
+        return productMapper.toDTO(savedProduct);
     }
 
     @Override
     public ProductResponse getAllProducts(Integer pageNumber, Integer pageSize, String sortBy, String sortOrder) {
+        return productResponseCache.get(
+                ProductPageKey.forAllProducts(pageNumber, pageSize, sortBy, sortOrder),
+                () -> fetchAllProducts(pageNumber, pageSize, sortBy, sortOrder));
+    }
+
+    private ProductResponse fetchAllProducts(Integer pageNumber, Integer pageSize, String sortBy, String sortOrder) {
         Sort sortByAndOrder = sortOrder.equalsIgnoreCase("asc")
                 ? Sort.by(sortBy).ascending()
                 : Sort.by(sortBy).descending();
 
         Pageable pageDetails = PageRequest.of(pageNumber, pageSize, sortByAndOrder);
-        Page<Product> pageProducts = productRepository.findAll(pageDetails);
+        Page<ProductDTO> pageProducts = productRepository.findAllProductDTOs(pageDetails);
 
-        List<Product> products = pageProducts.getContent();
+        List<ProductDTO> productDTOS = pageProducts.getContent();
 
-        if(products.isEmpty())
+        if(productDTOS.isEmpty())
             throw new APIException("No products exists!!");
 
-        List<ProductDTO> productDTOS = products.stream()
-                .map(product -> modelMapper.map(product, ProductDTO.class))
-                .toList();
         ProductResponse productResponse = new ProductResponse();
         productResponse.setContent(productDTOS);
         productResponse.setPageNumber(pageProducts.getNumber());
@@ -108,7 +145,13 @@ public class ProductServiceImpl implements ProductService {
 
     @Override
     public ProductResponse serchByCategoryId(Long categoryId, Integer pageNumber, Integer pageSize, String sortBy, String sortOrder) {
-        Category category = categoryRepository.findById(categoryId)
+        return productResponseCache.get(
+                ProductPageKey.forCategory(categoryId, pageNumber, pageSize, sortBy, sortOrder),
+                () -> fetchProductsByCategory(categoryId, pageNumber, pageSize, sortBy, sortOrder));
+    }
+
+    private ProductResponse fetchProductsByCategory(Long categoryId, Integer pageNumber, Integer pageSize, String sortBy, String sortOrder) {
+        String categoryName = categoryCatalog.nameOf(categoryId)
                 .orElseThrow(()->
                         new ResourceNotFoundException("Category","category", categoryId));
         Sort sortByAndOrder = sortOrder.equalsIgnoreCase("asc")
@@ -116,16 +159,13 @@ public class ProductServiceImpl implements ProductService {
                 : Sort.by(sortBy).descending();
 
         Pageable pageDetails = PageRequest.of(pageNumber, pageSize, sortByAndOrder);
-        Page<Product> pageProducts = productRepository.findByCategoryOrderByPriceAsc(category, pageDetails);
+        Page<ProductDTO> pageProducts = productRepository.findProductDTOsByCategoryId(categoryId, pageDetails);
 
-        List<Product> products = pageProducts.getContent();
+        List<ProductDTO> productDTOS = pageProducts.getContent();
 
-        if(products.isEmpty())
-            throw new APIException("Products not found with categoryName: " + category.getCategoryName());
+        if(productDTOS.isEmpty())
+            throw new APIException("Products not found with categoryName: " + categoryName);
 
-        List<ProductDTO> productDTOS = products.stream()
-                .map(product -> modelMapper.map(product, ProductDTO.class))
-                .toList();
         ProductResponse productResponse = new ProductResponse();
         productResponse.setContent(productDTOS);
         productResponse.setPageNumber(pageProducts.getNumber());
@@ -137,45 +177,154 @@ public class ProductServiceImpl implements ProductService {
     }
 
     @Override
-    public ProductResponse searchProductByKeyword(String keyword, Integer pageNumber, Integer pageSize, String sortBy, String sortOrder) {
-        Sort sortByAndOrder = sortOrder.equalsIgnoreCase("asc")
-                ? Sort.by(sortBy).ascending()
-                : Sort.by(sortBy).descending();
+    public ProductResponse getAllProductsByCursor(String cursor, Integer pageSize, String sortBy, String sortOrder) {
+        checkPageSize(pageSize);
+        boolean ascending = sortOrder.equalsIgnoreCase("asc");
+        ProductCursor after = decodeCursor(cursor, sortBy, ascending);
+        List<ProductDTO> productDTOS = productRepository.findProductDTOsAfter(null, sortBy,
+                ascending, after.sortKey(), after.productId(), pageSize + 1);
+
+        if(productDTOS.isEmpty())
+            throw new APIException("No products exists!!");
 
-        Pageable pageDetails = PageRequest.of(pageNumber, pageSize, sortByAndOrder);
-        Page<Product> pageProducts =productRepository.findByProductNameLikeIgnoreCase('%' + keyword + '%', pageDetails);
+        return toProductResponse(productDTOS, pageSize, sortBy, ascending);
+    }
+
+    @Override
+    public ProductResponse serchByCategoryIdByCursor(Long categoryId, String cursor, Integer pageSize, String sortBy, String sortOrder) {
+        String categoryName = categoryCatalog.nameOf(categoryId)
+                .orElseThrow(()->
+                        new ResourceNotFoundException("Category","category", categoryId));
+        checkPageSize(pageSize);
+        boolean ascending = sortOrder.equalsIgnoreCase("asc");
+        ProductCursor after = decodeCursor(cursor, sortBy, ascending);
+        List<ProductDTO> productDTOS = productRepository.findProductDTOsAfter(categoryId, sortBy,
+                ascending, after.sortKey(), after.productId(), pageSize + 1);
+
+        if(productDTOS.isEmpty())
+            throw new APIException("Products not found with categoryName: " + categoryName);
+
+        return toProductResponse(productDTOS, pageSize, sortBy, ascending);
+    }
+
+    // Keyset pages skip the count query, so only the cursor to the next page is reported.
+    // One row past the page is read to tell whether there is a next page.
+    private ProductResponse toProductResponse(List<ProductDTO> productDTOS, Integer pageSize, String sortBy, boolean ascending) {
+        boolean lastPage = productDTOS.size() <= pageSize;
+        if(!lastPage)
+            productDTOS = productDTOS.subList(0, pageSize);
+        ProductResponse productResponse = new ProductResponse();
+        productResponse.setContent(productDTOS);
+        productResponse.setPageSize(pageSize);
+        productResponse.setLastPage(lastPage);
+        if(!lastPage){
+            ProductDTO last = productDTOS.get(productDTOS.size() - 1);
+            productResponse.setNextCursor(CursorUtil.encode(sortBy, sortDirection(ascending),
+                    String.valueOf(productSortKey(sortBy, last)), String.valueOf(last.getProductId())));
+        }
+        return productResponse;
+    }
+
+    private void checkPageSize(Integer pageSize) {
+        if(pageSize == null || pageSize < 1 || pageSize > AppConstants.MAX_PAGE_SIZE){
+            throw new APIException("Page size must be between 1 and " + AppConstants.MAX_PAGE_SIZE);
+        }
+    }
+
+    // An empty cursor starts from the first row; a cursor is only valid for the sortBy and
+    // sortOrder it was issued for, the seek goes the other way for the opposite order
+    private ProductCursor decodeCursor(String cursor, String sortBy, boolean ascending) {
+        if(!ProductRepository.SORT_PROPERTIES.contains(sortBy))
+            throw new APIException("Cursor pagination is not supported for sortBy: " + sortBy);
+        if(cursor == null || cursor.isEmpty())
+            return new ProductCursor(null, null);
+        String[] parts = CursorUtil.decode(cursor, 4);
+        if(!parts[0].equals(sortBy))
+            throw new APIException("Cursor was issued for sortBy " + parts[0] + ", not " + sortBy);
+        if(!parts[1].equals(sortDirection(ascending)))
+            throw new APIException("Cursor was issued for sortOrder " + parts[1] + ", not " + sortDirection(ascending));
+        try {
+            return new ProductCursor(parseProductSortKey(sortBy, parts[2]), Long.valueOf(parts[3]));
+        } catch (NumberFormatException e) {
+            throw new APIException("Invalid cursor: " + cursor);
+        }
+    }
+
+    private String sortDirection(boolean ascending) {
+        return ascending ? "asc" : "desc";
+    }
+
+    // Only non-null columns can be sought on, a null sort key would never compare
+    private Object parseProductSortKey(String sortBy, String value) {
+        return switch (sortBy) {
+            case "productId" -> Long.valueOf(value);
+            case "productName" -> value;
+            case "price", "discount", "specialPrice" -> Double.valueOf(value);
+            default -> throw new APIException("Cursor pagination is not supported for sortBy: " + sortBy);
+        };
+    }
 
-        List<Product> products = pageProducts.getContent();
+    private Object productSortKey(String sortBy, ProductDTO productDTO) {
+        return switch (sortBy) {
+            case "productId" -> productDTO.getProductId();
+            case "productName" -> productDTO.getProductName();
+            case "price" -> productDTO.getPrice();
+            case "discount" -> productDTO.getDiscount();
+            case "specialPrice" -> productDTO.getSpecialPrice();
+            default -> throw new APIException("Cursor pagination is not supported for sortBy: " + sortBy);
+        };
+    }
+
+    @Override
+    public ProductResponse searchProductByKeyword(String keyword, Integer pageNumber, Integer pageSize, String sortBy, String sortOrder) {
+        // results come back in relevance order, so sortBy/sortOrder do not apply here
+        SearchResult searchResult = productSearchIndex.search(keyword, pageNumber, pageSize);
+        List<Long> productIds = searchResult.productIds();
 
-        if(products.isEmpty())
+        if(productIds.isEmpty())
             throw new APIException("Products not found with keyword: " + keyword);
 
-        List<ProductDTO> productDTOS = products.stream()
-                .map(product -> modelMapper.map(product, ProductDTO.class))
+        Map<Long, ProductDTO> productsById = productRepository.findProductDTOsByIdIn(productIds).stream()
+                .collect(Collectors.toMap(ProductDTO::getProductId, Function.identity()));
+        List<ProductDTO> productDTOS = productIds.stream()
+                .map(productsById::get)
+                .filter(Objects::nonNull)
                 .toList();
+        int totalPages = (int) ((searchResult.totalHits() + pageSize - 1) / pageSize);
         ProductResponse productResponse = new ProductResponse();
         productResponse.setContent(productDTOS);
-        productResponse.setPageNumber(pageProducts.getNumber());
-        productResponse.setPageSize(pageProducts.getSize());
-        productResponse.setTotalElements(pageProducts.getTotalElements());
-        productResponse.setTotalPages(pageProducts.getTotalPages());
-        productResponse.setLastPage(pageProducts.isLast());
+        productResponse.setPageNumber(pageNumber);
+        productResponse.setPageSize(pageSize);
+        productResponse.setTotalElements(searchResult.totalHits());
+        productResponse.setTotalPages(totalPages);
+        productResponse.setLastPage(pageNumber + 1 >= totalPages);
         return  productResponse;
     }
 
     @Override
+    @Transactional
     public ProductDTO updateProduct(Long productId, ProductDTO productDTO) {
 
+        // in-memory carts are written back in their own transaction, before the product row is locked here
+        cartStore.flushCartsContaining(productId);
+
         //Get the existing product from db
-        Product productFromDb = productRepository.findById(productId)
+        Product productFromDb = productRepository.findByIdForUpdate(productId)
                 .orElseThrow(()-> new ResourceNotFoundException("Product","product", productId));
-
-        Product product = modelMapper.map(productDTO, Product.class);
+        Product product = productMapper.toEntity(productDTO);
+        double oldSpecialPrice = productFromDb.getSpecialPrice();
 
         //update the product info
         productFromDb.setProductName(product.getProductName());
         productFromDb.setDescription(product.getDescription());
-        productFromDb.setQuantity(product.getQuantity());
+        // a sharded product keeps its stock in the buckets, spread again over as many of them
+        if(!productFromDb.isSharded()){
+            productFromDb.setQuantity(product.getQuantity());
+        } else {
+            List<ProductStockShard> shards = productStockShardRepository.findByProductIdForUpdate(productId);
+            distributeStock(productId, product.getQuantity(), shards.size());
+            productFromDb.setQuantity(0);
+        }
         productFromDb.setPrice(product.getPrice());
         productFromDb.setDiscount(product.getDiscount());
         double specialPrice = product.getPrice() -
@@ -185,29 +334,99 @@ public class ProductServiceImpl implements ProductService {
 
         //save to database
         Product savedProduct = productRepository.save(productFromDb);
-
-        List<Cart> carts = cartRepository.findCartsByProductId(productId);
-        List<CartDTO> cartDTOS = carts.stream().map((cart) -> {
-            CartDTO cartDTO = modelMapper.map(cart, CartDTO.class);
-            List<ProductDTO> products = cart.getCartItems().stream()
-                    .map(p -> modelMapper.map(p.getProduct(), ProductDTO.class))
-                    .toList();
-            cartDTO.setProducts(products);
-            return cartDTO;
-        }).toList();
-        cartDTOS.forEach(cart -> cartService.updateProductInCarts(cart.getCartId(), productId));
-        return modelMapper.map(savedProduct,ProductDTO.class);
+        productResponseCache.invalidateCategory(savedProduct.getCategory().getCategoryId());
+        catalogVersion.bump();
+        productSearchIndex.index(productId, savedProduct.getProductName(), savedProduct.getDescription());
+
+        // two statements whatever the number of carts holding the product
+        if(oldSpecialPrice != specialPrice){
+            int carts = cartRepository.repriceCartTotals(productId, specialPrice);
+            cartItemRepository.updateProductPrice(productId, specialPrice);
+            logger.debug("Repriced product {} in {} carts", productId, carts);
+        }
+        ProductDTO updatedProduct = productMapper.toDTO(savedProduct);
+        updatedProduct.setQuantity(product.getQuantity());
+        return updatedProduct;
 
     }
 
     @Override
+    @Transactional
     public ProductDTO deleteProduct(Long productId) {
         Product product = productRepository.findById(productId)
                 .orElseThrow(()-> new ResourceNotFoundException("Product","product", productId));
-        List<Cart> carts = cartRepository.findCartsByProductId(productId);
-        carts.forEach(cart -> cartService.deleteProductFromCart(cart.getCartId(), productId));
+        cartStore.flushCartsContaining(productId);
+
+        // cart totals first, they are computed from the lines about to be deleted
+        long start = System.nanoTime();
+        int carts = cartRepository.subtractProductFromCartTotals(productId);
+        int cartItems = cartItemRepository.deleteCartItemsByProductId(productId);
+        logger.info("Removed product {} from {} carts ({} cart items) in {} ms",
+                productId, carts, cartItems, (System.nanoTime() - start) / 1_000_000);
+
+        productStockShardRepository.deleteByProductId(productId);
         productRepository.delete(product);
-        return modelMapper.map(product, ProductDTO.class);
+        productResponseCache.invalidateCategory(product.getCategory().getCategoryId());
+        catalogVersion.bump();
+        productSearchIndex.remove(productId);
+        return productMapper.toDTO(product);
+    }
+
+    @Override
+    @Transactional
+    public ProductDTO shardProductStock(Long productId, Integer shards) {
+        if(shards == null || shards < 1 || shards > MAX_STOCK_SHARDS){
+            throw new APIException("Stock shards must be between 1 and " + MAX_STOCK_SHARDS);
+        }
+        Product product = productRepository.findByIdForUpdate(productId)
+                .orElseThrow(()-> new ResourceNotFoundException("Product","product", productId));
+
+        int stock = lockedStock(product);
+        distributeStock(productId, stock, shards);
+        product.setQuantity(0);
+        product.setSharded(true);
+        logger.info("Split stock {} of product {} across {} shards", stock, productId, shards);
+        return refreshStock(product, stock);
+    }
+
+    @Override
+    @Transactional
+    public ProductDTO unshardProductStock(Long productId) {
+        Product product = productRepository.findByIdForUpdate(productId)
+                .orElseThrow(()-> new ResourceNotFoundException("Product","product", productId));
+
+        int stock = lockedStock(product);
+        productStockShardRepository.deleteByProductId(productId);
+        product.setQuantity(stock);
+        product.setSharded(false);
+        return refreshStock(product, stock);
+    }
+
+    // the products row first and then its shards, the order checkouts take them in
+    private int lockedStock(Product product) {
+        int stock = product.getQuantity();
+        for (ProductStockShard shard : productStockShardRepository.findByProductIdForUpdate(product.getProductId())) {
+            stock += shard.getQuantity();
+        }
+        return stock;
+    }
+
+    private void distributeStock(Long productId, int stock, int shards) {
+        productStockShardRepository.deleteByProductId(productId);
+        List<ProductStockShard> buckets = new ArrayList<>(shards);
+        for (int shardNo = 0; shardNo < shards; shardNo++) {
+            int quantity = stock / shards + (shardNo < stock % shards ? 1 : 0);
+            buckets.add(new ProductStockShard(null, productId, shardNo, quantity));
+        }
+        productStockShardRepository.saveAll(buckets);
+    }
+
+    private ProductDTO refreshStock(Product product, int stock) {
+        productResponseCache.invalidateCategory(product.getCategory().getCategoryId());
+        catalogVersion.bump();
+        ProductDTO productDTO = productMapper.toDTO(product);
+        productDTO.setQuantity(stock);
+        return productDTO;
     }
 
     @Override
@@ -226,8 +445,18 @@ public class ProductServiceImpl implements ProductService {
 
         //save updated product
         Product updatedProduct = productRepository.save(productFromDb);
+        productResponseCache.invalidateCategory(updatedProduct.getCategory().getCategoryId());
+        catalogVersion.bump();
 
         //return DTO after mapping to DTO
-        return modelMapper.map(updatedProduct, ProductDTO.class);
+        return productMapper.toDTO(updatedProduct);
+    }
+
+    @Override
+    public CacheStatsDTO getProductCacheStats() {
+        return productResponseCache.stats();
+    }
+
+    private record ProductCursor(Object sortKey, Long productId) {
     }
 }
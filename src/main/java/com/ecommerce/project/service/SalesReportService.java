@@ -0,0 +1,16 @@
+package com.ecommerce.project.service;
+
+import com.ecommerce.project.payload.CategorySalesDTO;
+import com.ecommerce.project.payload.DailySalesDTO;
+import com.ecommerce.project.payload.ProductSalesDTO;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public interface SalesReportService {
+    List<DailySalesDTO> getDailySales(LocalDate from, LocalDate to);
+
+    List<ProductSalesDTO> getTopProductSales(LocalDate from, LocalDate to, Integer limit);
+
+    List<CategorySalesDTO> getCategorySales(LocalDate from, LocalDate to);
+}
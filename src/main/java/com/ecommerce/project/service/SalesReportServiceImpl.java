@@ -0,0 +1,59 @@
+package com.ecommerce.project.service;
+
+import com.ecommerce.project.exceptions.APIException;
+import com.ecommerce.project.payload.CategorySalesDTO;
+import com.ecommerce.project.payload.DailySalesDTO;
+import com.ecommerce.project.payload.ProductSalesDTO;
+import com.ecommerce.project.repositories.DailyCategorySalesRepository;
+import com.ecommerce.project.repositories.DailyProductSalesRepository;
+import com.ecommerce.project.repositories.DailySalesRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.util.List;
+
+// Reports read only the sales rollups, never orders or order_items: the cost of a report
+// grows with its date range, not with the number of orders
+@Service
+public class SalesReportServiceImpl implements SalesReportService {
+
+    private static final int MAX_TOP_PRODUCTS = 1000;
+
+    @Autowired
+    private DailySalesRepository dailySalesRepository;
+
+    @Autowired
+    private DailyProductSalesRepository dailyProductSalesRepository;
+
+    @Autowired
+    private DailyCategorySalesRepository dailyCategorySalesRepository;
+
+    @Override
+    public List<DailySalesDTO> getDailySales(LocalDate from, LocalDate to) {
+        validateRange(from, to);
+        return dailySalesRepository.findDailySales(from, to);
+    }
+
+    @Override
+    public List<ProductSalesDTO> getTopProductSales(LocalDate from, LocalDate to, Integer limit) {
+        validateRange(from, to);
+        if (limit < 1 || limit > MAX_TOP_PRODUCTS) {
+            throw new APIException("Limit must be between 1 and " + MAX_TOP_PRODUCTS);
+        }
+        return dailyProductSalesRepository.findTopProductSales(from, to, Limit.of(limit));
+    }
+
+    @Override
+    public List<CategorySalesDTO> getCategorySales(LocalDate from, LocalDate to) {
+        validateRange(from, to);
+        return dailyCategorySalesRepository.findCategorySales(from, to);
+    }
+
+    private void validateRange(LocalDate from, LocalDate to) {
+        if (from.isAfter(to)) {
+            throw new APIException("Report start " + from + " is after its end " + to);
+        }
+    }
+}
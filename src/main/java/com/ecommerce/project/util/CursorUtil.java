@@ -0,0 +1,36 @@
+package com.ecommerce.project.util;
+
+import com.ecommerce.project.exceptions.APIException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Base64;
+
+public class CursorUtil {
+
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    private CursorUtil() {
+    }
+
+    // Cursors are opaque to clients: every part is base64url encoded and the parts are joined with '.'
+    public static String encode(String... parts) {
+        return String.join(".", Arrays.stream(parts)
+                .map(part -> ENCODER.encodeToString(part.getBytes(StandardCharsets.UTF_8)))
+                .toList());
+    }
+
+    public static String[] decode(String cursor, int expectedParts) {
+        String[] parts = cursor.split("\\.", -1);
+        if (parts.length != expectedParts)
+            throw new APIException("Invalid cursor: " + cursor);
+        try {
+            return Arrays.stream(parts)
+                    .map(part -> new String(DECODER.decode(part), StandardCharsets.UTF_8))
+                    .toArray(String[]::new);
+        } catch (IllegalArgumentException e) {
+            throw new APIException("Invalid cursor: " + cursor);
+        }
+    }
+}
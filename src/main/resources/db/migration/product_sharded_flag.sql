@@ -0,0 +1,15 @@
+-- Adds products.sharded, which limits the availableQuantity formula's product_stock_shards
+-- subquery to the products whose stock was split. Run once when deploying the flag, before or
+-- after ddl-auto=update has added the column: without it, products sharded before the column
+-- existed would show only products.quantity, which is 0 for them. Shard rows left behind by
+-- products deleted earlier are removed as well.
+
+BEGIN;
+
+ALTER TABLE products ADD COLUMN IF NOT EXISTS sharded boolean NOT NULL DEFAULT false;
+UPDATE products SET sharded = true
+WHERE product_id IN (SELECT DISTINCT product_id FROM product_stock_shards);
+DELETE FROM product_stock_shards s
+WHERE NOT EXISTS (SELECT 1 FROM products p WHERE p.product_id = s.product_id);
+
+COMMIT;
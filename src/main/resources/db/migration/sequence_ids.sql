@@ -0,0 +1,32 @@
+-- Moves orders, order_items, cart_items, payments and outbox_events from identity columns
+-- to pooled sequences (allocationSize = 50 in the entities). Run once, with the application
+-- stopped, before deploying the sequence-based entities: otherwise ddl-auto=update creates
+-- the sequences starting at 1 and the first inserts collide with existing ids.
+--
+-- Each sequence steps by 50 and is positioned past the current maximum id. Hibernate's pooled
+-- optimizer hands out the 50 ids ending at the value it reads, so the first block starts
+-- above every existing row.
+
+BEGIN;
+
+CREATE SEQUENCE IF NOT EXISTS orders_seq INCREMENT BY 50;
+SELECT setval('orders_seq', COALESCE((SELECT MAX(order_id) FROM orders), 0) + 1);
+ALTER TABLE orders ALTER COLUMN order_id DROP IDENTITY IF EXISTS;
+
+CREATE SEQUENCE IF NOT EXISTS order_items_seq INCREMENT BY 50;
+SELECT setval('order_items_seq', COALESCE((SELECT MAX(order_item_id) FROM order_items), 0) + 1);
+ALTER TABLE order_items ALTER COLUMN order_item_id DROP IDENTITY IF EXISTS;
+
+CREATE SEQUENCE IF NOT EXISTS cart_items_seq INCREMENT BY 50;
+SELECT setval('cart_items_seq', COALESCE((SELECT MAX(cart_item_id) FROM cart_items), 0) + 1);
+ALTER TABLE cart_items ALTER COLUMN cart_item_id DROP IDENTITY IF EXISTS;
+
+CREATE SEQUENCE IF NOT EXISTS payments_seq INCREMENT BY 50;
+SELECT setval('payments_seq', COALESCE((SELECT MAX(payment_id) FROM payments), 0) + 1);
+ALTER TABLE payments ALTER COLUMN payment_id DROP IDENTITY IF EXISTS;
+
+CREATE SEQUENCE IF NOT EXISTS outbox_events_seq INCREMENT BY 50;
+SELECT setval('outbox_events_seq', COALESCE((SELECT MAX(event_id) FROM outbox_events), 0) + 1);
+ALTER TABLE outbox_events ALTER COLUMN event_id DROP IDENTITY IF EXISTS;
+
+COMMIT;
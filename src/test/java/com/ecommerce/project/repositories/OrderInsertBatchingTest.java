@@ -0,0 +1,116 @@
+package com.ecommerce.project.repositories;
+
+import com.ecommerce.project.model.Category;
+import com.ecommerce.project.model.Order;
+import com.ecommerce.project.model.OrderItem;
+import com.ecommerce.project.model.Payment;
+import com.ecommerce.project.model.Product;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// Counts the INSERT statements of a 50-line checkout write: with identity ids this was one
+// INSERT per order item, with pooled sequences the items go out as a single batch.
+@DataJpaTest(properties = {
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector=" +
+                "com.ecommerce.project.repositories.OrderInsertBatchingTest$InsertCounter"
+})
+class OrderInsertBatchingTest {
+
+    private static final int LINES = 50;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private OrderItemRepository orderItemRepository;
+
+    @Autowired
+    private PaymentRepository paymentRepository;
+
+    @Test
+    void checkoutInsertsAreBatched() {
+        List<Product> products = createProducts();
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        InsertCounter.prepared.set(0);
+
+        Payment payment = paymentRepository.save(new Payment("card", "pg-1", "succeeded", "ok", "stripe"));
+        Order order = new Order();
+        order.setEmail("user@example.com");
+        order.setOrderDate(LocalDate.now());
+        order.setTotalAmount(500.0);
+        order.setOrderStatus("Order Accepted !");
+        order.setPayment(payment);
+        order = orderRepository.save(order);
+
+        List<OrderItem> orderItems = new ArrayList<>();
+        for (Product product : products) {
+            OrderItem orderItem = new OrderItem();
+            orderItem.setProduct(product);
+            orderItem.setOrder(order);
+            orderItem.setQuantity(1);
+            orderItem.setOrderedProductPrice(10.0);
+            orderItems.add(orderItem);
+        }
+        orderItemRepository.saveAll(orderItems);
+        entityManager.flush();
+
+        // every row is written, but one prepared INSERT (one JDBC batch) per table
+        assertEquals(LINES + 2, statistics.getEntityInsertCount());
+        assertEquals(3, InsertCounter.prepared.get(), "expected one insert batch per table");
+    }
+
+    private List<Product> createProducts() {
+        Category category = new Category();
+        category.setCategoryName("Category");
+        entityManager.persist(category);
+
+        List<Product> products = new ArrayList<>();
+        for (int i = 0; i < LINES; i++) {
+            Product product = new Product();
+            product.setProductName("Product " + i);
+            product.setDescription("Description " + i);
+            product.setQuantity(100);
+            product.setPrice(10.0);
+            product.setCategory(category);
+            entityManager.persist(product);
+            products.add(product);
+        }
+        entityManager.flush();
+        return products;
+    }
+
+    // Hibernate inspects each statement as it is prepared, a batch is prepared once
+    public static class InsertCounter implements StatementInspector {
+
+        static final AtomicInteger prepared = new AtomicInteger();
+
+        @Override
+        public String inspect(String sql) {
+            if (sql.stripLeading().regionMatches(true, 0, "insert", 0, 6))
+                prepared.incrementAndGet();
+            return sql;
+        }
+    }
+}
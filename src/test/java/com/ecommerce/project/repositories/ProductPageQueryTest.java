@@ -0,0 +1,128 @@
+package com.ecommerce.project.repositories;
+
+import com.ecommerce.project.model.Category;
+import com.ecommerce.project.model.Product;
+import com.ecommerce.project.payload.ProductDTO;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// Counts the statements of a product listing page: the DTO projections read a page with one
+// select, plus the count query, however many rows it holds. No product or category entity
+// is loaded, so there is no per-row query for a category or for stock.
+@DataJpaTest(properties = {
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector=" +
+                "com.ecommerce.project.repositories.ProductPageQueryTest$StatementCounter"
+})
+class ProductPageQueryTest {
+
+    private static final int PRODUCTS_PER_CATEGORY = 30;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    private Statistics statistics;
+    private Long categoryId;
+
+    @BeforeEach
+    void setUp() {
+        categoryId = createCategory("Electronics");
+        createCategory("Furniture");
+        entityManager.flush();
+        entityManager.clear();
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    void productPageIsOneSelectPlusCount() {
+        for (int pageSize : new int[]{5, 20, 50}) {
+            resetCounts();
+
+            Page<ProductDTO> page = productRepository.findAllProductDTOs(
+                    PageRequest.of(0, pageSize, Sort.by("price").ascending()));
+
+            assertEquals(pageSize, page.getContent().size());
+            assertEquals(2 * PRODUCTS_PER_CATEGORY, page.getTotalElements());
+            assertStatements(2);
+        }
+    }
+
+    @Test
+    void categoryPageIsOneSelectPlusCount() {
+        for (int pageSize : new int[]{5, 10}) {
+            resetCounts();
+
+            Page<ProductDTO> page = productRepository.findProductDTOsByCategoryId(categoryId, PageRequest.of(1, pageSize));
+
+            assertEquals(pageSize, page.getContent().size());
+            assertEquals(PRODUCTS_PER_CATEGORY, page.getTotalElements());
+            // available stock comes from the projection, not from loading the product
+            page.getContent().forEach(product -> assertEquals(100, product.getQuantity()));
+            assertStatements(2);
+        }
+    }
+
+    // every page read here is full and not the last one, so Spring Data also runs the count query
+    private void assertStatements(int expected) {
+        assertEquals(expected, StatementCounter.prepared.get(), "statements for one page");
+        assertEquals(0, statistics.getEntityLoadCount(), "entities loaded for one page");
+        assertEquals(0, statistics.getEntityFetchCount(), "entities fetched for one page");
+    }
+
+    private void resetCounts() {
+        entityManager.clear();
+        statistics.clear();
+        StatementCounter.prepared.set(0);
+    }
+
+    private Long createCategory(String categoryName) {
+        Category category = new Category();
+        category.setCategoryName(categoryName);
+        entityManager.persist(category);
+        for (int i = 0; i < PRODUCTS_PER_CATEGORY; i++) {
+            Product product = new Product();
+            product.setProductName(categoryName + " " + i);
+            product.setDescription("Description " + i);
+            product.setQuantity(100);
+            product.setPrice(10.0 + i);
+            product.setSpecialPrice(10.0 + i);
+            product.setCategory(category);
+            entityManager.persist(product);
+        }
+        return category.getCategoryId();
+    }
+
+    // Hibernate inspects each statement as it is prepared
+    public static class StatementCounter implements StatementInspector {
+
+        static final AtomicInteger prepared = new AtomicInteger();
+
+        @Override
+        public String inspect(String sql) {
+            prepared.incrementAndGet();
+            return sql;
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package com.ecommerce.project.service;
+
+import com.ecommerce.project.exceptions.APIException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class InventoryReservationTest {
+
+    private static final int PRODUCTS = 3;
+    private static final int STOCK = 1000;
+    private static final int THREADS = 16;
+    private static final int ORDERS_PER_THREAD = 200;
+
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate transactionTemplate;
+    private InventoryReservation inventoryReservation;
+
+    @BeforeEach
+    void setUp() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:inventory;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=10000", "sa", "");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("DROP TABLE IF EXISTS products");
+        jdbcTemplate.execute("CREATE TABLE products (product_id BIGINT PRIMARY KEY, product_name VARCHAR(255), quantity INT)");
+        jdbcTemplate.execute("DROP TABLE IF EXISTS product_stock_shards");
+        jdbcTemplate.execute("CREATE TABLE product_stock_shards (product_id BIGINT, shard_no INT, quantity INT, " +
+                "PRIMARY KEY (product_id, shard_no))");
+        for (long productId = 1; productId <= PRODUCTS; productId++) {
+            jdbcTemplate.update("INSERT INTO products VALUES (?, ?, ?)", productId, "Product " + productId, STOCK);
+        }
+        transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+
+        inventoryReservation = new InventoryReservation();
+        ReflectionTestUtils.setField(inventoryReservation, "jdbcTemplate", jdbcTemplate);
+    }
+
+    @Test
+    void rejectsOrderWhenStockIsShort() {
+        Map<Long, Integer> order = Map.of(1L, 1, 2L, STOCK + 1);
+
+        APIException e = assertThrows(APIException.class,
+                () -> transactionTemplate.executeWithoutResult(status -> inventoryReservation.reserve(order)));
+
+        assertTrue(e.getMessage().contains("Product 2"));
+        // the line that did fit is rolled back with the rest of the order
+        assertEquals(STOCK, stock(1L));
+        assertEquals(STOCK, stock(2L));
+    }
+
+    @Test
+    void shardedStockIsTakenFromSeveralBucketsWhenNoneHoldsEnough() {
+        shard(2L, 4);
+
+        transactionTemplate.executeWithoutResult(status -> inventoryReservation.reserve(Map.of(2L, STOCK / 4 + 10)));
+
+        assertEquals(STOCK - STOCK / 4 - 10, stock(2L));
+        assertThrows(APIException.class,
+                () -> transactionTemplate.executeWithoutResult(status -> inventoryReservation.reserve(Map.of(2L, STOCK))));
+        assertEquals(STOCK - STOCK / 4 - 10, stock(2L));
+    }
+
+    @Test
+    void concurrentReservationsNeverOversellShardedStock() throws Exception {
+        for (long productId = 1; productId <= PRODUCTS; productId++) {
+            shard(productId, 8);
+        }
+        runAndVerify();
+    }
+
+    @Test
+    void concurrentReservationsNeverOversell() throws Exception {
+        runAndVerify();
+    }
+
+    // demand is far above the stock, so most orders near the end are rejected
+    private void runAndVerify() throws Exception {
+        AtomicLongArray sold = new AtomicLongArray(PRODUCTS + 1);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int thread = 0; thread < THREADS; thread++) {
+                Random random = new Random(thread);
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < ORDERS_PER_THREAD; i++) {
+                        Map<Long, Integer> order = randomOrder(random);
+                        try {
+                            transactionTemplate.executeWithoutResult(status -> inventoryReservation.reserve(order));
+                            order.forEach((productId, quantity) -> sold.addAndGet(productId.intValue(), quantity));
+                        } catch (APIException outOfStock) {
+                            // rejected orders leave no trace
+                        }
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        for (long productId = 1; productId <= PRODUCTS; productId++) {
+            int remaining = stock(productId);
+            assertTrue(remaining >= 0, "product " + productId + " oversold");
+            assertEquals(STOCK - remaining, sold.get((int) productId), "product " + productId + " lost an update");
+        }
+    }
+
+    // lines arrive in random order, as they would from different carts
+    private Map<Long, Integer> randomOrder(Random random) {
+        List<Long> productIds = new ArrayList<>();
+        for (long productId = 1; productId <= PRODUCTS; productId++) {
+            productIds.add(productId);
+        }
+        Collections.shuffle(productIds, random);
+        Map<Long, Integer> order = new LinkedHashMap<>();
+        for (Long productId : productIds.subList(0, 1 + random.nextInt(PRODUCTS))) {
+            order.put(productId, 1 + random.nextInt(5));
+        }
+        return order;
+    }
+
+    // moves the product's stock into equal buckets, as ProductService.shardProductStock does
+    private void shard(Long productId, int shards) {
+        for (int shardNo = 0; shardNo < shards; shardNo++) {
+            jdbcTemplate.update("INSERT INTO product_stock_shards VALUES (?, ?, ?)", productId, shardNo, STOCK / shards);
+        }
+        jdbcTemplate.update("UPDATE products SET quantity = ? WHERE product_id = ?", STOCK % shards, productId);
+    }
+
+    private int stock(Long productId) {
+        return jdbcTemplate.queryForObject("SELECT quantity + COALESCE((SELECT SUM(s.quantity) FROM product_stock_shards s " +
+                "WHERE s.product_id = p.product_id), 0) FROM products p WHERE product_id = ?", Integer.class, productId);
+    }
+}